@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.genre.CachedGenreStorage;
+import ru.yandex.practicum.filmorate.repository.genre.GenreRepository;
+import ru.yandex.practicum.filmorate.repository.mappers.FilmRowMapper;
+import ru.yandex.practicum.filmorate.repository.mappers.GenreRowMapper;
+import ru.yandex.practicum.filmorate.repository.mappers.MpaRowMapper;
+import ru.yandex.practicum.filmorate.repository.mappers.UserRowMapper;
+import ru.yandex.practicum.filmorate.repository.mpa.CachedMpaStorage;
+import ru.yandex.practicum.filmorate.repository.mpa.MpaRepository;
+import ru.yandex.practicum.filmorate.repository.user.FriendGraph;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+// Синтетические данные во встроенной H2: схема и справочники из миграций db/migration,
+// пользователи, фильмы, режиссеры, лайки и дружба генерируются с фиксированным seed
+public class BenchmarkData {
+    private static final int BATCH = 5_000;
+    private static final String[] WORDS = {"ночь", "город", "звезда", "дорога", "тайна", "море", "последний",
+            "первый", "война", "любовь", "остров", "тень", "время", "дом", "игра", "star", "dark", "night",
+            "river", "storm"};
+
+    private final JdbcTemplate jdbc;
+    private final Random random = new Random(42);
+    private final int users;
+    private final int films;
+
+    public BenchmarkData(int users, int films, int likesPerUser, int friendsPerUser, int directors) {
+        this.users = users;
+        this.films = films;
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        insertUsers();
+        insertDirectors(directors);
+        insertFilms(directors);
+        insertLikes(likesPerUser);
+        insertFriends(friendsPerUser);
+    }
+
+    public JdbcTemplate jdbc() {
+        return jdbc;
+    }
+
+    public FilmRepository filmRepository() {
+        return filmRepository(jdbc, false);
+    }
+
+    // Хранилище фильмов поверх другого источника соединений к той же базе (например, пула)
+    public FilmRepository filmRepository(JdbcTemplate jdbc, boolean parallelHydration) {
+        CachedGenreStorage genres = new CachedGenreStorage(new GenreRepository(jdbc, new GenreRowMapper()));
+        genres.load();
+        CachedMpaStorage mpas = new CachedMpaStorage(new MpaRepository(jdbc, new MpaRowMapper()));
+        mpas.load();
+        return new FilmRepository(jdbc, new FilmRowMapper(), genres, mpas, parallelHydration, 1000);
+    }
+
+    public UserRepository userRepository() {
+        FriendGraph friendGraph = new FriendGraph(jdbc);
+        friendGraph.rebuild();
+        return new UserRepository(jdbc, new UserRowMapper(), friendGraph);
+    }
+
+    public long randomUserId() {
+        return 1 + random.nextInt(users);
+    }
+
+    public long randomFilmId() {
+        return 1 + random.nextInt(films);
+    }
+
+    public String randomWord() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private void insertUsers() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= users; i++) {
+            rows.add(new Object[]{"user" + i + "@mail.ru", "user" + i, "User " + i,
+                    Date.valueOf(LocalDate.of(1970 + i % 40, 1 + i % 12, 1 + i % 28))});
+        }
+        batch("INSERT INTO users(email, login, name, birthday) VALUES (?, ?, ?, ?)", rows);
+    }
+
+    private void insertDirectors(int directors) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= directors; i++) {
+            rows.add(new Object[]{"Режиссер " + randomWord() + " " + i});
+        }
+        batch("INSERT INTO directors(name) VALUES (?)", rows);
+    }
+
+    private void insertFilms(int directors) {
+        List<Object[]> rows = new ArrayList<>();
+        List<Object[]> genres = new ArrayList<>();
+        List<Object[]> filmDirectors = new ArrayList<>();
+        for (int i = 1; i <= films; i++) {
+            rows.add(new Object[]{randomWord() + " " + randomWord() + " " + i, "Описание " + i,
+                    Date.valueOf(LocalDate.of(1950 + random.nextInt(75), 1 + random.nextInt(12), 1)),
+                    60 + random.nextInt(120), 1 + random.nextInt(5)});
+            genres.add(new Object[]{i, 1 + random.nextInt(6)});
+            if (directors > 0) {
+                filmDirectors.add(new Object[]{i, 1 + random.nextInt(directors)});
+            }
+        }
+        batch("INSERT INTO films(name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)", rows);
+        batch("MERGE INTO film_genres(film_id, genre_id) VALUES (?, ?)", genres);
+        batch("MERGE INTO film_directors(film_id, director_id) VALUES (?, ?)", filmDirectors);
+    }
+
+    private void insertLikes(int likesPerUser) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int user = 1; user <= users; user++) {
+            for (int i = 0; i < likesPerUser; i++) {
+                // квадрат равномерной величины смещает лайки к первым фильмам - есть "хиты"
+                double skewed = Math.pow(random.nextDouble(), 2);
+                rows.add(new Object[]{1 + (int) (skewed * films), user});
+            }
+        }
+        batch("MERGE INTO likes(film_id, user_id) VALUES (?, ?)", rows);
+        jdbc.update("UPDATE films AS f SET like_count = (SELECT COUNT(*) FROM likes AS l WHERE l.film_id = f.film_id)");
+    }
+
+    private void insertFriends(int friendsPerUser) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int user = 1; user <= users; user++) {
+            for (int i = 0; i < friendsPerUser; i++) {
+                long friend = randomUserId();
+                if (friend != user) {
+                    rows.add(new Object[]{user, friend});
+                }
+            }
+        }
+        batch("MERGE INTO friends(user_id, friend_id) VALUES (?, ?)", rows);
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH) {
+            jdbc.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + BATCH)));
+        }
+    }
+}
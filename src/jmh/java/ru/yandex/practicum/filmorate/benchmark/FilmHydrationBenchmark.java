@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Чтение одного фильма (FilmRepository.get) последовательно и параллельно через пул соединений.
+// latencyMicros добавляет к каждому выполнению запроса задержку сетевого обмена с отдельной базой:
+// у встроенной H2 её нет, и выигрыш параллельного чтения виден только при ненулевой задержке
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmHydrationBenchmark {
+    @Param({"false", "true"})
+    private boolean parallel;
+    @Param({"0", "500"})
+    private int latencyMicros;
+    @Param("5000")
+    private int films;
+
+    private BenchmarkData data;
+    private HikariDataSource pool;
+    private FilmRepository filmRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new BenchmarkData(2000, films, 20, 5, 200);
+        HikariConfig config = new HikariConfig();
+        config.setDataSource(data.jdbc().getDataSource());
+        config.setMaximumPoolSize(10);
+        pool = new HikariDataSource(config);
+        filmRepository = data.filmRepository(new JdbcTemplate(new DelayingDataSource(pool, latencyMicros)),
+                parallel);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        filmRepository.close();
+        pool.close();
+    }
+
+    @Benchmark
+    public Film get() {
+        return filmRepository.get(data.randomFilmId());
+    }
+
+    private static class DelayingDataSource extends DelegatingDataSource {
+        private final long delayNanos;
+
+        DelayingDataSource(HikariDataSource target, int latencyMicros) {
+            super(target);
+            this.delayNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            if (delayNanos == 0) {
+                return connection;
+            }
+            return proxy(Connection.class, connection, (proxy, method, args) -> {
+                Object result = invoke(method, connection, args);
+                return result instanceof PreparedStatement statement
+                        ? proxy(PreparedStatement.class, statement, (p, m, a) -> {
+                            if (m.getName().startsWith("execute")) {
+                                LockSupport.parkNanos(delayNanos);
+                            }
+                            return invoke(m, statement, a);
+                        })
+                        : result;
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, java.lang.reflect.InvocationHandler handler) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+        }
+
+        private static Object invoke(java.lang.reflect.Method method, Object target, Object[] args)
+                throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.repository.film.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.repository.film.LikeIndex;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Методы FilmStorage на синтетических данных; рейтинг, поиск и рекомендации - прежние SQL-запросы
+// из LegacyFilmQueries против индексов в памяти
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmStorageBenchmark {
+    @Param("2000")
+    private int users;
+    @Param("5000")
+    private int films;
+    @Param("20")
+    private int likesPerUser;
+    @Param("10")
+    private int friendsPerUser;
+    @Param("200")
+    private int directors;
+
+    private BenchmarkData data;
+    private FilmRepository filmRepository;
+    private LegacyFilmQueries legacyQueries;
+    private FilmLeaderboard leaderboard;
+    private FilmSearchIndex searchIndex;
+    private RecommendationService recommendationService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new BenchmarkData(users, films, likesPerUser, friendsPerUser, directors);
+        filmRepository = data.filmRepository();
+        legacyQueries = new LegacyFilmQueries(data.jdbc(), filmRepository);
+        leaderboard = new FilmLeaderboard(data.jdbc());
+        leaderboard.rebuild();
+        searchIndex = new FilmSearchIndex(data.jdbc());
+        searchIndex.rebuild();
+        LikeIndex likeIndex = new LikeIndex(data.jdbc());
+        likeIndex.rebuild();
+        recommendationService = new RecommendationService(likeIndex, 5, 50);
+    }
+
+    @Benchmark
+    public Film get() {
+        return filmRepository.get(data.randomFilmId());
+    }
+
+    @Benchmark
+    public List<Film> getAll() {
+        return filmRepository.getAll();
+    }
+
+    @Benchmark
+    public List<Film> getPage() {
+        return filmRepository.getPage(data.randomFilmId(), 100);
+    }
+
+    @Benchmark
+    public boolean exists() {
+        return filmRepository.exists(data.randomFilmId());
+    }
+
+    @Benchmark
+    public boolean likeAndRemoveLike() {
+        long filmId = data.randomFilmId();
+        long userId = data.randomUserId();
+        return filmRepository.like(filmId, userId) & filmRepository.removeLike(filmId, userId);
+    }
+
+    @Benchmark
+    public List<Film> getTopFilms() {
+        return legacyQueries.getTopFilms(10);
+    }
+
+    @Benchmark
+    public List<Film> getTopFilmsByGenre() {
+        return legacyQueries.getTopFilmsByGenre(10, 2);
+    }
+
+    @Benchmark
+    public List<Film> getTopFilmsByYear() {
+        return legacyQueries.getTopFilmsByYear(10, 2000);
+    }
+
+    @Benchmark
+    public List<Film> getTopFilmsByGenreAndYear() {
+        return legacyQueries.getTopFilmsByGenreAndYear(10, 2, 2000);
+    }
+
+    @Benchmark
+    public List<Film> leaderboardTopFilms() {
+        return filmRepository.getByIds(leaderboard.getTop(10, 2L, null));
+    }
+
+    @Benchmark
+    public List<Film> getDirectorFilms() {
+        return filmRepository.getDirectorFilms(1 + data.randomFilmId() % directors, "likes");
+    }
+
+    @Benchmark
+    public List<Film> getFilmsSearchByTitle() {
+        return legacyQueries.getFilmsSearchByTitle(data.randomWord());
+    }
+
+    @Benchmark
+    public List<Film> getFilmsSearchByDirector() {
+        return legacyQueries.getFilmsSearchByDirector(data.randomWord());
+    }
+
+    @Benchmark
+    public List<Film> getFilmsSearchByDirectorOrTitle() {
+        return legacyQueries.getFilmsSearchByDirectorOrTitle(data.randomWord());
+    }
+
+    @Benchmark
+    public List<Film> searchIndexDirectorOrTitle() {
+        Set<Long> found = searchIndex.search(data.randomWord(), true, true);
+        return filmRepository.getByIds(leaderboard.rank(found));
+    }
+
+    @Benchmark
+    public List<Film> getRecommendationFilms() {
+        return legacyQueries.getRecommendationFilms(data.randomUserId());
+    }
+
+    @Benchmark
+    public List<Long> recommendationServiceIds() {
+        return recommendationService.recommend(data.randomUserId());
+    }
+
+    @Benchmark
+    public List<Film> getCommonFilms() {
+        return filmRepository.getCommonFilms(data.randomUserId(), data.randomUserId());
+    }
+
+    @Benchmark
+    public List<Long> getLikedFilmIds() {
+        return filmRepository.getLikedFilmIds(data.randomUserId());
+    }
+}
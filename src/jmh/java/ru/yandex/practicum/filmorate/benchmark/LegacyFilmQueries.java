@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// SQL-запросы рейтинга, поиска и рекомендаций, которые приложение заменило индексами в памяти
+// (FilmLeaderboard, FilmSearchIndex, LikeIndex). Остались только как точка сравнения в бенчмарках:
+// порядок фильмов считает база, сами фильмы догружаются через FilmRepository.getByIds
+public class LegacyFilmQueries {
+    private static final String TOP_QUERY = "SELECT film_id FROM films ORDER BY like_count DESC, film_id LIMIT ?";
+    private static final String TOP_BY_GENRE_AND_YEAR = """
+            SELECT f.film_id
+            FROM films AS f
+            JOIN film_genres AS fg ON f.film_id = fg.film_id
+            WHERE fg.genre_id = ? AND f.release_date >= ? AND f.release_date < ?
+            ORDER BY f.like_count DESC, f.film_id
+            LIMIT ?
+            """;
+    private static final String TOP_BY_GENRE = """
+            SELECT f.film_id
+            FROM films AS f
+            JOIN film_genres AS fg ON f.film_id = fg.film_id
+            WHERE fg.genre_id = ?
+            ORDER BY f.like_count DESC, f.film_id
+            LIMIT ?
+            """;
+    private static final String TOP_BY_YEAR = """
+            SELECT f.film_id
+            FROM films AS f
+            WHERE f.release_date >= ? AND f.release_date < ?
+            ORDER BY f.like_count DESC, f.film_id
+            LIMIT ?
+            """;
+    private static final String SEARCH_BY_TITLE = "SELECT f.film_id FROM films AS f " +
+            "WHERE LOWER(f.name) LIKE LOWER('%' || ? || '%') ORDER BY f.like_count DESC, f.film_id";
+    private static final String SEARCH_BY_DIRECTOR = "SELECT f.film_id FROM films AS f " +
+            "WHERE f.film_id IN (SELECT fd.film_id FROM film_directors AS fd " +
+            "JOIN directors AS d ON d.director_id = fd.director_id " +
+            "WHERE LOWER(d.name) LIKE LOWER('%' || ? || '%')) " +
+            "ORDER BY f.like_count DESC, f.film_id";
+    private static final String SEARCH_BY_DIRECTOR_OR_TITLE = "SELECT f.film_id FROM films AS f " +
+            "WHERE LOWER(f.name) LIKE LOWER('%' || ? || '%') " +
+            "OR f.film_id IN (SELECT fd.film_id FROM film_directors AS fd " +
+            "JOIN directors AS d ON d.director_id = fd.director_id " +
+            "WHERE LOWER(d.name) LIKE LOWER('%' || ? || '%')) " +
+            "ORDER BY f.like_count DESC, f.film_id";
+    private static final String USERS_WITH_SIMILAR_LIKES = "SELECT user_id " +
+            "FROM likes " +
+            "WHERE film_id IN (SELECT film_id FROM likes WHERE user_id = ?) AND user_id <> ? " +
+            "GROUP BY user_id " +
+            "ORDER BY COUNT(*) DESC " +
+            "LIMIT 5";
+    private static final String RECOMMENDATION_FILMS = "SELECT f.film_id " +
+            "FROM films AS f " +
+            "JOIN likes AS l ON l.film_id = f.film_id " +
+            "WHERE l.user_id = ? AND f.film_id NOT IN (SELECT film_id FROM likes WHERE user_id = ?) " +
+            "ORDER BY f.like_count DESC, f.film_id " +
+            "LIMIT 5";
+
+    private final JdbcTemplate jdbc;
+    private final FilmRepository filmRepository;
+
+    public LegacyFilmQueries(JdbcTemplate jdbc, FilmRepository filmRepository) {
+        this.jdbc = jdbc;
+        this.filmRepository = filmRepository;
+    }
+
+    public List<Film> getTopFilms(long size) {
+        return films(TOP_QUERY, size);
+    }
+
+    public List<Film> getTopFilmsByGenreAndYear(long limit, long genreId, int year) {
+        return films(TOP_BY_GENRE_AND_YEAR, genreId, yearStart(year), yearStart(year + 1), limit);
+    }
+
+    public List<Film> getTopFilmsByGenre(long limit, long genreId) {
+        return films(TOP_BY_GENRE, genreId, limit);
+    }
+
+    public List<Film> getTopFilmsByYear(long limit, int year) {
+        return films(TOP_BY_YEAR, yearStart(year), yearStart(year + 1), limit);
+    }
+
+    public List<Film> getFilmsSearchByTitle(String query) {
+        return films(SEARCH_BY_TITLE, query);
+    }
+
+    public List<Film> getFilmsSearchByDirector(String query) {
+        return films(SEARCH_BY_DIRECTOR, query);
+    }
+
+    public List<Film> getFilmsSearchByDirectorOrTitle(String query) {
+        return films(SEARCH_BY_DIRECTOR_OR_TITLE, query, query);
+    }
+
+    public List<Long> getUsersIdWithSimilarLikes(long userId) {
+        return jdbc.queryForList(USERS_WITH_SIMILAR_LIKES, Long.class, userId, userId);
+    }
+
+    // Фильмы похожих пользователей по очереди, пока не наберётся пять
+    public List<Film> getRecommendationFilms(long userId) {
+        Set<Long> filmIds = new LinkedHashSet<>();
+        for (Long similarUserId : getUsersIdWithSimilarLikes(userId)) {
+            for (Long filmId : jdbc.queryForList(RECOMMENDATION_FILMS, Long.class, similarUserId, userId)) {
+                filmIds.add(filmId);
+                if (filmIds.size() > 4) {
+                    return filmRepository.getByIds(new ArrayList<>(filmIds));
+                }
+            }
+        }
+        return filmRepository.getByIds(new ArrayList<>(filmIds));
+    }
+
+    private List<Film> films(String query, Object... params) {
+        return filmRepository.getByIds(jdbc.queryForList(query, Long.class, params));
+    }
+
+    private static LocalDate yearStart(int year) {
+        return LocalDate.of(year, 1, 1);
+    }
+}
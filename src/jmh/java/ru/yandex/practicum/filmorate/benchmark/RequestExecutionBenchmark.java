@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.repository.GatedDataSource;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Нагрузочное сравнение режимов выполнения запросов: concurrency одновременных "запросов", каждый читает
+// фильм из базы и ждёт blockMillis внешнего вызова. platform - пул из platformThreads потоков, как у Tomcat,
+// соединения ждут в пуле Hikari; virtual - поток на запрос и семафор GatedDataSource на размер пула.
+// Результат - время обработки всех concurrency запросов
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestExecutionBenchmark {
+    @Param({"platform", "virtual"})
+    private String mode;
+    @Param("2000")
+    private int concurrency;
+    @Param({"0", "5"})
+    private int blockMillis;
+    @Param("200")
+    private int platformThreads;
+    @Param("10")
+    private int poolSize;
+    @Param("5000")
+    private int films;
+
+    private HikariDataSource pool;
+    private ExecutorService executor;
+    private FilmRepository filmRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData data = new BenchmarkData(1000, films, 5, 5, 100);
+        HikariConfig config = new HikariConfig();
+        config.setDataSource(data.jdbc().getDataSource());
+        config.setMaximumPoolSize(poolSize);
+        pool = new HikariDataSource(config);
+        DataSource dataSource = pool;
+        if ("virtual".equals(mode)) {
+            dataSource = new GatedDataSource(pool, poolSize, 30_000);
+            executor = Executors.newVirtualThreadPerTaskExecutor();
+        } else {
+            executor = Executors.newFixedThreadPool(platformThreads);
+        }
+        filmRepository = data.filmRepository(new JdbcTemplate(dataSource), false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        pool.close();
+    }
+
+    @Benchmark
+    public long requests() throws Exception {
+        List<Future<Long>> responses = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            responses.add(executor.submit(this::handle));
+        }
+        long total = 0;
+        for (Future<Long> response : responses) {
+            total += response.get();
+        }
+        return total;
+    }
+
+    private long handle() throws InterruptedException {
+        long filmId = 1 + ThreadLocalRandom.current().nextInt(films);
+        long duration = filmRepository.get(filmId).getDuration();
+        if (blockMillis > 0) {
+            Thread.sleep(blockMillis);
+        }
+        return duration;
+    }
+}
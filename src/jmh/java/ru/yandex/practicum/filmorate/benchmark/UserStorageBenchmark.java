@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Методы UserStorage на синтетических данных
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserStorageBenchmark {
+    @Param("5000")
+    private int users;
+    @Param("2000")
+    private int films;
+    @Param("20")
+    private int likesPerUser;
+    @Param("20")
+    private int friendsPerUser;
+
+    private BenchmarkData data;
+    private UserRepository userRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new BenchmarkData(users, films, likesPerUser, friendsPerUser, 0);
+        userRepository = data.userRepository();
+    }
+
+    @Benchmark
+    public User get() {
+        return userRepository.get(data.randomUserId());
+    }
+
+    @Benchmark
+    public List<User> getAll() {
+        return userRepository.getAll();
+    }
+
+    @Benchmark
+    public List<User> getPage() {
+        return userRepository.getPage(data.randomUserId(), 100);
+    }
+
+    @Benchmark
+    public boolean exists() {
+        return userRepository.exists(data.randomUserId());
+    }
+
+    @Benchmark
+    public List<User> getFriends() {
+        return userRepository.getFriends(data.randomUserId());
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        return userRepository.getCommonFriends(data.randomUserId(), data.randomUserId());
+    }
+
+    @Benchmark
+    public void addAndRemoveFriend() {
+        long userId = data.randomUserId();
+        long friendId = data.randomUserId();
+        if (userId != friendId) {
+            userRepository.removeFriend(userId, friendId);
+            userRepository.addFriend(userId, friendId);
+        }
+    }
+}
@@ -4,8 +4,10 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.service.DirectorService;
+import ru.yandex.practicum.filmorate.service.EntityVersions;
 
 import java.util.List;
 
@@ -16,14 +18,23 @@ import java.util.List;
 @RequestMapping("/directors")
 public class DirectorController {
     private final DirectorService directorService;
+    private final EntityVersions versions;
 
     @GetMapping("/{id}")
-    public Director getDirector(@PathVariable long id) {
-        return directorService.getDirector(id);
+    public Director getDirector(@PathVariable long id, WebRequest request) {
+        // несуществующий режиссёр - 404, а не 304 по общей для всех режиссёров версии
+        Director director = directorService.getDirector(id);
+        if (request.checkNotModified(versions.directors())) {
+            return null;
+        }
+        return director;
     }
 
     @GetMapping
-    public List<Director> getAllDirectors() {
+    public List<Director> getAllDirectors(WebRequest request) {
+        if (request.checkNotModified(versions.directors())) {
+            return null;
+        }
         return directorService.getAllDirectors();
     }
 
@@ -1,12 +1,25 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.LikeBatchReport;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.service.EntityVersions;
+import ru.yandex.practicum.filmorate.service.FilmImportService;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeBatchService;
 
+import java.io.InputStream;
 import java.util.List;
 
 @Slf4j
@@ -15,12 +28,33 @@ import java.util.List;
 @RequestMapping("/films")
 public class FilmController {
     private final FilmService filmService;
+    private final FilmImportService filmImportService;
+    private final LikeBatchService likeBatchService;
+    private final EntityVersions versions;
+    private final ObjectMapper objectMapper;
+    @Value("${filmorate.streaming.page-size:500}")
+    private int streamPageSize;
 
     @PostMapping
     public Film create(@Valid @RequestBody Film film) {
         return filmService.create(film);
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ImportReport importFilms(InputStream body) {
+        return filmImportService.importFilms(FilmImportReader.jsonArray(objectMapper, body));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ImportReport importFilmsNdjson(InputStream body) {
+        return filmImportService.importFilms(FilmImportReader.ndjson(objectMapper, body));
+    }
+
+    @PostMapping("/likes")
+    public LikeBatchReport applyLikes(@RequestBody List<LikeChange> changes) {
+        return likeBatchService.apply(changes);
+    }
+
     @PutMapping
     public Film update(@Valid @RequestBody Film newFilmData) {
         filmService.update(newFilmData);
@@ -28,12 +62,31 @@ public class FilmController {
     }
 
     @GetMapping
-    public List<Film> findAll() {
-        return filmService.getAll();
+    public ResponseEntity<List<Film>> findAll(@RequestParam(required = false) Long after,
+                                              @RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) String stream) {
+        if (!KeysetStreaming.isPageRequest(after, limit, stream)) {
+            return ResponseEntity.ok(filmService.getAll());
+        }
+        long afterId = after != null ? after : 0;
+        KeysetStreaming.checkPage(afterId, limit);
+        return KeysetStreaming.page(filmService.getPage(afterId, limit), limit, Film::getId);
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAll(@RequestParam(required = false) Long after,
+                                                           @RequestParam(required = false) Integer limit) {
+        KeysetStreaming.checkStream(after, limit);
+        return KeysetStreaming.stream(objectMapper, filmService::getPage, Film::getId, streamPageSize);
     }
 
     @GetMapping("{id}")
-    public Film getFilm(@PathVariable long id) {
+    public Film getFilm(@PathVariable long id, WebRequest request) {
+        // удалённый или неизвестный фильм - 404, а не 304; проверка идёт через кэш фильмов
+        filmService.checkFilmExists(id);
+        if (request.checkNotModified(versions.film(id))) {
+            return null;
+        }
         return filmService.getFilm(id);
     }
 
@@ -0,0 +1,155 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmImportRow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Читает тело запроса импорта по одному фильму, не загружая весь документ в память:
+// JSON-массив - поэлементно потоковым парсером, NDJSON - построчно.
+// Ошибка в одном фильме (неверный тип поля, дата, null) становится ошибкой строки; нарушенный синтаксис
+// JSON-массива становится последней строкой с ошибкой, потому что после него границы следующих элементов
+// неизвестны. Импорт при этом не прерывается исключением: уже записанные пачки попадают в отчёт со своими id
+abstract class FilmImportReader implements Iterator<FilmImportRow> {
+    protected final ObjectMapper objectMapper;
+    private FilmImportRow next;
+    private int index;
+
+    private FilmImportReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    static FilmImportReader jsonArray(ObjectMapper objectMapper, InputStream body) {
+        return new JsonArrayReader(objectMapper, body);
+    }
+
+    static FilmImportReader ndjson(ObjectMapper objectMapper, InputStream body) {
+        return new NdjsonReader(objectMapper, body);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = readNext(index);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (next != null) {
+                index++;
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public FilmImportRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        FilmImportRow row = next;
+        next = null;
+        return row;
+    }
+
+    // null, когда данные закончились
+    protected abstract FilmImportRow readNext(int index) throws IOException;
+
+    protected FilmImportRow convert(int index, JsonNode node) {
+        if (node == null || node.isNull()) {
+            return row(index, null);
+        }
+        try {
+            return row(index, objectMapper.treeToValue(node, Film.class));
+        } catch (JsonProcessingException e) {
+            return FilmImportRow.failed(index, "Некорректные данные фильма: " + e.getOriginalMessage());
+        }
+    }
+
+    private static FilmImportRow row(int index, Film film) {
+        if (film == null) {
+            return FilmImportRow.failed(index, "Вместо фильма указан null");
+        }
+        return FilmImportRow.of(index, film);
+    }
+
+    private static class JsonArrayReader extends FilmImportReader {
+        private final InputStream body;
+        private JsonParser parser;
+        private boolean broken;
+
+        JsonArrayReader(ObjectMapper objectMapper, InputStream body) {
+            super(objectMapper);
+            this.body = body;
+        }
+
+        @Override
+        protected FilmImportRow readNext(int index) throws IOException {
+            if (broken) {
+                return null;
+            }
+            if (parser == null) {
+                parser = objectMapper.getFactory().createParser(body);
+                try {
+                    if (parser.nextToken() != JsonToken.START_ARRAY) {
+                        throw new ValidationException("Ожидается JSON-массив фильмов");
+                    }
+                } catch (JsonProcessingException e) {
+                    throw new ValidationException("Ожидается JSON-массив фильмов: " + e.getOriginalMessage());
+                }
+            }
+            try {
+                JsonToken token = parser.nextToken();
+                if (token == null || token == JsonToken.END_ARRAY) {
+                    return null;
+                }
+                return convert(index, parser.readValueAsTree());
+            } catch (JsonProcessingException e) {
+                broken = true;
+                return FilmImportRow.failed(index, "Некорректный JSON, импорт остановлен: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private static class NdjsonReader extends FilmImportReader {
+        private final BufferedReader reader;
+
+        NdjsonReader(ObjectMapper objectMapper, InputStream body) {
+            super(objectMapper);
+            this.reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        protected FilmImportRow readNext(int index) throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+            // строка разбирается сразу в Film, без промежуточного дерева
+            try {
+                return row(index, objectMapper.readValue(line, Film.class));
+            } catch (JsonParseException e) {
+                return FilmImportRow.failed(index, "Некорректный JSON: " + e.getOriginalMessage());
+            } catch (JsonProcessingException e) {
+                return FilmImportRow.failed(index, "Некорректные данные фильма: " + e.getOriginalMessage());
+            }
+        }
+    }
+}
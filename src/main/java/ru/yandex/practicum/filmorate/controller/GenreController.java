@@ -6,7 +6,9 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.service.EntityVersions;
 import ru.yandex.practicum.filmorate.service.GenreService;
 
 import java.util.List;
@@ -17,14 +19,23 @@ import java.util.List;
 @RequestMapping("/genres")
 public class GenreController {
     private final GenreService genreService;
+    private final EntityVersions versions;
 
     @GetMapping("{id}")
-    public Genre getGenre(@PathVariable long id) {
-        return genreService.getGenre(id);
+    public Genre getGenre(@PathVariable long id, WebRequest request) {
+        // несуществующий жанр - 404, а не 304 по общей для всех жанров версии
+        Genre genre = genreService.getGenre(id);
+        if (request.checkNotModified(versions.genres())) {
+            return null;
+        }
+        return genre;
     }
 
     @GetMapping
-    public List<Genre> getAllGenres() {
+    public List<Genre> getAllGenres(WebRequest request) {
+        if (request.checkNotModified(versions.genres())) {
+            return null;
+        }
         return genreService.getAllGenres();
     }
 }
@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+// Постраничная выдача по ключу (id > курсор, либо составной курсор) и потоковая запись JSON-массива
+// страницами: в памяти одновременно находится не больше одной страницы. Первая страница читается
+// до начала ответа, чтобы ошибки (например, 404) возвращались обычным ответом, а не обрывом потока.
+// Поток выбирается ровно параметром stream=true, страница - параметром limit, весь список - запросом
+// без параметров; остальные сочетания отклоняются, а не сводятся к чтению всей таблицы
+public final class KeysetStreaming {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private KeysetStreaming() {
+    }
+
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        List<T> load(long afterId, int limit);
+    }
+
+    @FunctionalInterface
+    public interface CursorPageLoader<T, C> {
+        List<T> load(C after, int limit);
+    }
+
+    // Для запроса без stream=true: true - нужна страница, false - весь список
+    public static boolean isPageRequest(Object after, Integer limit, String stream) {
+        if (stream != null && !"false".equals(stream)) {
+            throw new ValidationException("Параметр stream принимает значения true или false");
+        }
+        if (limit != null) {
+            return true;
+        }
+        if (after != null) {
+            throw new ValidationException("Курсор after указывается вместе с limit");
+        }
+        return false;
+    }
+
+    public static void checkStream(Object after, Integer limit) {
+        if (after != null || limit != null) {
+            throw new ValidationException("Параметры after и limit не используются вместе с stream=true");
+        }
+    }
+
+    public static void checkPage(long afterId, int limit) {
+        if (afterId < 0) {
+            throw new ValidationException("Курсор не может быть отрицательным");
+        }
+        checkLimit(limit);
+    }
+
+    public static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+    }
+
+    public static <T> ResponseEntity<List<T>> page(List<T> items, int limit, ToLongFunction<T> key) {
+        return cursorPage(items, limit, item -> String.valueOf(key.applyAsLong(item)));
+    }
+
+    public static <T> ResponseEntity<List<T>> cursorPage(List<T> items, int limit, Function<T, String> cursor) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (items.size() == limit) {
+            response.header(NEXT_CURSOR_HEADER, cursor.apply(items.getLast()));
+        }
+        return response.body(items);
+    }
+
+    public static <T> ResponseEntity<StreamingResponseBody> stream(ObjectMapper mapper, PageLoader<T> loader,
+                                                                   ToLongFunction<T> key, int pageSize) {
+        return streamByCursor(mapper, (Long afterId, int limit) -> loader.load(afterId, limit),
+                key::applyAsLong, 0L, pageSize);
+    }
+
+    public static <T, C> ResponseEntity<StreamingResponseBody> streamByCursor(ObjectMapper mapper,
+                                                                             CursorPageLoader<T, C> loader,
+                                                                             Function<T, C> cursorOf,
+                                                                             C start, int pageSize) {
+        List<T> firstPage = loader.load(start, pageSize);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                List<T> page = firstPage;
+                while (true) {
+                    for (T item : page) {
+                        mapper.writeValue(generator, item);
+                    }
+                    generator.flush();
+                    if (page.size() < pageSize) {
+                        break;
+                    }
+                    page = loader.load(cursorOf.apply(page.getLast()), pageSize);
+                }
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.Collection;
+
+// Лайки фильма в ответе: ids - массив id пользователей, count - только их число в поле likeCount.
+// Формат по умолчанию задаёт filmorate.films.likes-format (он же действует для потоковой выдачи),
+// отдельный запрос выбирает свой параметром likes=ids|count
+@RestControllerAdvice
+public class LikesFormatAdvice extends AbstractMappingJacksonResponseBodyAdvice
+        implements Jackson2ObjectMapperBuilderCustomizer {
+    private static final String PARAMETER = "likes";
+    private static final FilterProvider IDS = new SimpleFilterProvider()
+            .addFilter(Film.LIKES_FILTER, SimpleBeanPropertyFilter.serializeAllExcept("likeCount"));
+    private static final FilterProvider COUNT = new SimpleFilterProvider()
+            .addFilter(Film.LIKES_FILTER, SimpleBeanPropertyFilter.serializeAllExcept("likes"));
+
+    private final FilterProvider defaultFormat;
+
+    public LikesFormatAdvice(@Value("${filmorate.films.likes-format:ids}") String likesFormat) {
+        this.defaultFormat = filters(likesFormat);
+    }
+
+    @Override
+    public void customize(Jackson2ObjectMapperBuilder builder) {
+        builder.filters(defaultFormat);
+    }
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue container, MediaType contentType,
+                                           MethodParameter returnType, ServerHttpRequest request,
+                                           ServerHttpResponse response) {
+        // параметр likes есть только у ответов с фильмами; у пользователей, жанров и ошибок он не проверяется
+        if (!containsFilms(container.getValue())) {
+            return;
+        }
+        if (request instanceof ServletServerHttpRequest servletRequest) {
+            String format = servletRequest.getServletRequest().getParameter(PARAMETER);
+            if (format != null) {
+                container.setFilters(filters(format));
+            }
+        }
+    }
+
+    private static boolean containsFilms(Object body) {
+        if (body instanceof Collection<?> items) {
+            return items.stream().anyMatch(Film.class::isInstance);
+        }
+        return body instanceof Film;
+    }
+
+    private static FilterProvider filters(String format) {
+        return switch (format.toLowerCase()) {
+            case "ids" -> IDS;
+            case "count" -> COUNT;
+            default -> throw new ValidationException("Формат лайков должен быть ids или count");
+        };
+    }
+}
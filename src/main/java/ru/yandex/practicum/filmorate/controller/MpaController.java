@@ -6,7 +6,9 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.service.EntityVersions;
 import ru.yandex.practicum.filmorate.service.MpaService;
 
 import java.util.List;
@@ -17,14 +19,23 @@ import java.util.List;
 @RequestMapping("/mpa")
 public class MpaController {
     private final MpaService mpaService;
+    private final EntityVersions versions;
 
     @GetMapping("{id}")
-    public Mpa getMpa(@PathVariable long id) {
-        return mpaService.getMpa(id);
+    public Mpa getMpa(@PathVariable long id, WebRequest request) {
+        // несуществующий рейтинг - 404, а не 304 по общей для всех рейтингов версии
+        Mpa mpa = mpaService.getMpa(id);
+        if (request.checkNotModified(versions.mpa())) {
+            return null;
+        }
+        return mpa;
     }
 
     @GetMapping
-    public List<Mpa> getAllMpas() {
+    public List<Mpa> getAllMpas(WebRequest request) {
+        if (request.checkNotModified(versions.mpa())) {
+            return null;
+        }
         return mpaService.getAllMpas();
     }
 }
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.yandex.practicum.filmorate.repository.metrics.QueryCounter;
+
+import java.io.IOException;
+
+// Число SQL-запросов на один HTTP-запрос (filmorate.http.queries) по шаблону адреса:
+// рост значения для эндпоинта указывает на появившийся N+1
+@Slf4j
+@Component
+public class QueryCountFilter extends OncePerRequestFilter {
+    private final QueryCounter queryCounter;
+    private final MeterRegistry registry;
+    private final int warnThreshold;
+
+    public QueryCountFilter(QueryCounter queryCounter, MeterRegistry registry,
+                            @Value("${filmorate.metrics.request-query-warn-threshold:20}") int warnThreshold) {
+        this.queryCounter = queryCounter;
+        this.registry = registry;
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        queryCounter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int queries = queryCounter.stop();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+            DistributionSummary.builder("filmorate.http.queries")
+                    .description("SQL-запросы, выполненные при обработке HTTP-запроса")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .serviceLevelObjectives(1, 2, 5, 10, 20, 50, 100)
+                    .register(registry)
+                    .record(queries);
+            if (queries > warnThreshold) {
+                log.warn("{} {} выполнил {} SQL-запросов", request.getMethod(), uri, queries);
+            }
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.FeedCursor;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
@@ -17,6 +22,9 @@ import java.util.List;
 @RequestMapping("/users")
 public class UserController {
     private final UserService userService;
+    private final ObjectMapper objectMapper;
+    @Value("${filmorate.streaming.page-size:500}")
+    private int streamPageSize;
 
     @PostMapping
     public User create(@Valid @RequestBody User user) {
@@ -30,8 +38,22 @@ public class UserController {
     }
 
     @GetMapping
-    public List<User> findAll() {
-        return userService.findAll();
+    public ResponseEntity<List<User>> findAll(@RequestParam(required = false) Long after,
+                                              @RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) String stream) {
+        if (!KeysetStreaming.isPageRequest(after, limit, stream)) {
+            return ResponseEntity.ok(userService.findAll());
+        }
+        long afterId = after != null ? after : 0;
+        KeysetStreaming.checkPage(afterId, limit);
+        return KeysetStreaming.page(userService.getPage(afterId, limit), limit, User::getId);
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAll(@RequestParam(required = false) Long after,
+                                                           @RequestParam(required = false) Integer limit) {
+        KeysetStreaming.checkStream(after, limit);
+        return KeysetStreaming.stream(objectMapper, userService::getPage, User::getId, streamPageSize);
     }
 
     @GetMapping("{id}")
@@ -65,12 +87,43 @@ public class UserController {
     }
 
     @GetMapping("/{id}/feed")
-    public List<Event> getFeed(@PathVariable long id) {
-        return userService.getEvents(id);
+    public ResponseEntity<List<Event>> getFeed(@PathVariable long id,
+                                               @RequestParam(required = false) String after,
+                                               @RequestParam(required = false) Integer limit,
+                                               @RequestParam(required = false) String stream) {
+        if (!KeysetStreaming.isPageRequest(after, limit, stream)) {
+            return ResponseEntity.ok(userService.getEvents(id));
+        }
+        KeysetStreaming.checkLimit(limit);
+        List<Event> events = userService.getEvents(id, FeedCursor.parse(after), limit);
+        return KeysetStreaming.cursorPage(events, limit, event -> FeedCursor.of(event).toString());
+    }
+
+    @GetMapping(value = "/{id}/feed", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamFeed(@PathVariable long id,
+                                                            @RequestParam(required = false) String after,
+                                                            @RequestParam(required = false) Integer limit) {
+        KeysetStreaming.checkStream(after, limit);
+        return KeysetStreaming.streamByCursor(objectMapper, (FeedCursor cursor, int size) ->
+                userService.getEvents(id, cursor, size), FeedCursor::of, FeedCursor.START, streamPageSize);
+    }
+
+    @GetMapping("/{id}/friends/feed")
+    public ResponseEntity<List<Event>> getFriendsFeed(@PathVariable long id,
+                                                      @RequestParam(required = false) String after,
+                                                      @RequestParam(defaultValue = "50") int limit) {
+        KeysetStreaming.checkLimit(limit);
+        List<Event> events = userService.getFriendEvents(id, FeedCursor.parse(after), limit);
+        return KeysetStreaming.cursorPage(events, limit, event -> FeedCursor.of(event).toString());
     }
 
     @GetMapping("{id}/recommendations")
     public List<Film> getRecommendations(@PathVariable long id) {
         return userService.getRecommendations(id);
     }
+
+    @GetMapping("{id}/suggestions")
+    public List<User> getSuggestions(@PathVariable long id) {
+        return userService.getSuggestions(id);
+    }
 }
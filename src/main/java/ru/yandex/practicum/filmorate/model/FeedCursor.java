@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.model;
+
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+
+// Позиция в ленте событий: лента упорядочена по (timestamp, eventId), курсор передаётся как "timestamp:eventId"
+public record FeedCursor(long timestamp, long eventId) {
+    public static final FeedCursor START = new FeedCursor(0, 0);
+    private static final String SEPARATOR = ":";
+
+    public static FeedCursor of(Event event) {
+        return new FeedCursor(event.getTimestamp(), event.getEventId());
+    }
+
+    public static FeedCursor parse(String value) {
+        if (value == null || value.isBlank()) {
+            return START;
+        }
+        String[] parts = value.split(SEPARATOR);
+        try {
+            if (parts.length == 2) {
+                FeedCursor cursor = new FeedCursor(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+                if (cursor.timestamp() >= 0 && cursor.eventId() >= 0) {
+                    return cursor;
+                }
+            }
+        } catch (NumberFormatException ignored) {
+            // сообщение об ошибке ниже
+        }
+        throw new ValidationException("Некорректный курсор ленты: " + value);
+    }
+
+    @Override
+    public String toString() {
+        return timestamp + SEPARATOR + eventId;
+    }
+}
@@ -1,5 +1,9 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -7,6 +11,8 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.hibernate.validator.constraints.Length;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
+import ru.yandex.practicum.filmorate.util.SortedLongSetJson;
 
 import java.time.LocalDate;
 import java.util.HashSet;
@@ -16,7 +22,11 @@ import java.util.Set;
 @Data
 @EqualsAndHashCode(of = {"name", "releaseDate", "duration"})
 @NoArgsConstructor
+@JsonFilter(Film.LIKES_FILTER)
 public class Film {
+    // фильтр выбирает, что попадает в ответ: id лайкнувших пользователей (likes) или только их число (likeCount)
+    public static final String LIKES_FILTER = "filmLikes";
+
     private Long id;
     @NotBlank(message = "Название не может быть пустым")
     private String name;
@@ -27,7 +37,11 @@ public class Film {
     private LocalDate releaseDate;
     @Positive(message = "Продолжительность фильма должна быть положительным числом")
     private long duration;
-    private final Set<Long> likes = new HashSet<>();
+    // id пользователей в отсортированном массиве: у популярного фильма сотни тысяч лайков, и Long на каждый
+    // стоил бы памяти при чтении и сериализации
+    @JsonSerialize(using = SortedLongSetJson.Serializer.class)
+    @JsonDeserialize(using = SortedLongSetJson.Deserializer.class)
+    private final SortedLongSet likes = new SortedLongSet();
     private final LinkedHashSet<Genre> genres = new LinkedHashSet<>();
     private Mpa mpa;
 
@@ -41,6 +55,11 @@ public class Film {
         likes.remove(userId);
     }
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public int getLikeCount() {
+        return likes.size();
+    }
+
     public void addGenre(Genre genre) {
         genres.add(genre);
     }
@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.model;
+
+// Строка импорта фильмов: разобранный фильм или ошибка разбора, index - номер строки во входных данных
+public record FilmImportRow(int index, Film film, String error) {
+    public static FilmImportRow of(int index, Film film) {
+        return new FilmImportRow(index, film, null);
+    }
+
+    public static FilmImportRow failed(int index, String error) {
+        return new FilmImportRow(index, null, error);
+    }
+}
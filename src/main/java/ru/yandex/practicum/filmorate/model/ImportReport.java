@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.List;
+
+// Итог импорта: ids - id созданных записей в порядке входных данных (null для строк с ошибкой)
+public record ImportReport(int total, int imported, List<Long> ids, List<RowError> errors) {
+    public record RowError(int index, String message) {
+    }
+}
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.List;
+
+// Итог пакета лайков: outcomes - результат каждой операции в порядке входных данных.
+// UNCHANGED - лайк уже стоял (или уже был снят), REJECTED - операция не выполнена, причина в message
+public record LikeBatchReport(int total, int applied, List<Outcome> outcomes) {
+    public enum Status {
+        APPLIED,
+        UNCHANGED,
+        REJECTED
+    }
+
+    public record Outcome(int index, Status status, String message) {
+    }
+}
@@ -0,0 +1,5 @@
+package ru.yandex.practicum.filmorate.model;
+
+// Операция пакета лайков: operation ADD ставит лайк пользователя userId фильму filmId, REMOVE - снимает
+public record LikeChange(Long filmId, Long userId, Operation operation) {
+}
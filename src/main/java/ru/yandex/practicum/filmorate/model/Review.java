@@ -18,20 +18,4 @@ public class Review {
     @NotNull(message = "Необходимо указать id фильма")
     private Long filmId;
     private long useful;
-
-    public void like() {
-        useful++;
-    }
-
-    public void dislike() {
-        useful--;
-    }
-
-    public void removeLike() {
-        useful--;
-    }
-
-    public void removeDislike() {
-        useful++;
-    }
 }
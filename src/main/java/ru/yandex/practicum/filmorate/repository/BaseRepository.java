@@ -2,15 +2,21 @@ package ru.yandex.practicum.filmorate.repository;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlProvider;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import ru.yandex.practicum.filmorate.exceptions.InternalServerException;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RequiredArgsConstructor
@@ -31,6 +37,12 @@ public class BaseRepository<T> {
         return jdbc.query(query, mapper, params);
     }
 
+    // Запрос с ограничением времени: по истечении timeoutSeconds драйвер отменяет его и освобождает соединение
+    protected <E> List<E> queryWithTimeout(String query, int timeoutSeconds, RowMapper<E> rowMapper,
+                                           Object... params) {
+        return jdbc.query(new TimedStatementCreator(query, timeoutSeconds, params), rowMapper);
+    }
+
     protected boolean delete(String query, long id) {
         int rowsDeleted = jdbc.update(query, id);
         return rowsDeleted > 0;
@@ -45,14 +57,7 @@ public class BaseRepository<T> {
 
     protected long insert(String query, Object... params) {
         GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
-        jdbc.update(connection -> {
-            PreparedStatement ps = connection
-                    .prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
-            for (int idx = 0; idx < params.length; idx++) {
-                ps.setObject(idx + 1, params[idx]);
-            }
-            return ps;
-        }, keyHolder);
+        jdbc.update(new InsertStatementCreator(query, params), keyHolder);
 
         Long id = keyHolder.getKeyAs(Long.class);
 
@@ -64,7 +69,45 @@ public class BaseRepository<T> {
         }
     }
 
+    // Пакетная вставка; возвращает сгенерированные id в порядке строк
+    protected long[] insertMany(String query, List<Object[]> batchArgs) {
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.batchUpdate(new InsertStatementCreator(query, new Object[0]), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Object[] params = batchArgs.get(i);
+                for (int idx = 0; idx < params.length; idx++) {
+                    ps.setObject(idx + 1, params[idx]);
+                }
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batchArgs.size();
+            }
+        }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != batchArgs.size()) {
+            throw new InternalServerException("Не удалось сохранить данные");
+        }
+        long[] ids = new long[keys.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = ((Number) keys.get(i).values().iterator().next()).longValue();
+        }
+        return ids;
+    }
+
     protected <E> void addMany(String query, long id, List<E> list) {
+        batchForId(query, id, list);
+    }
+
+    protected <E> void removeMany(String query, long id, List<E> list) {
+        batchForId(query, id, list);
+    }
+
+    // Один пакетный запрос с параметрами (id, элемент) для каждого элемента списка
+    private <E> void batchForId(String query, long id, List<E> list) {
         if (!list.isEmpty()) {
             List<Object[]> batchArgs = new ArrayList<>(list.size());
             for (Object element : list) {
@@ -73,4 +116,40 @@ public class BaseRepository<T> {
             jdbc.batchUpdate(query, batchArgs);
         }
     }
+
+    // SqlProvider отдаёт текст запроса метрикам MeteredJdbcTemplate
+    private record InsertStatementCreator(String sql, Object[] params)
+            implements PreparedStatementCreator, SqlProvider {
+        @Override
+        public PreparedStatement createPreparedStatement(Connection connection) throws SQLException {
+            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            for (int idx = 0; idx < params.length; idx++) {
+                ps.setObject(idx + 1, params[idx]);
+            }
+            return ps;
+        }
+
+        @Override
+        public String getSql() {
+            return sql;
+        }
+    }
+
+    private record TimedStatementCreator(String sql, int timeoutSeconds, Object[] params)
+            implements PreparedStatementCreator, SqlProvider {
+        @Override
+        public PreparedStatement createPreparedStatement(Connection connection) throws SQLException {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setQueryTimeout(timeoutSeconds);
+            for (int idx = 0; idx < params.length; idx++) {
+                ps.setObject(idx + 1, params[idx]);
+            }
+            return ps;
+        }
+
+        @Override
+        public String getSql() {
+            return sql;
+        }
+    }
 }
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+// Оборачивает источник соединений в GatedDataSource, если filmorate.jdbc.gate.enabled (по умолчанию
+// включено вместе с виртуальными потоками). Число разрешений - permits или, если 0, размер пула Hikari:
+// тысячи виртуальных потоков ждут соединения в очереди семафора, а не в пуле
+@Slf4j
+@Component
+public class DataSourceGate implements BeanPostProcessor, MeterBinder {
+    private static final int DEFAULT_PERMITS = 10;
+
+    private final boolean enabled;
+    private final int permits;
+    private final long timeoutMs;
+    private GatedDataSource gate;
+    private MeterRegistry registry;
+
+    public DataSourceGate(@Value("${filmorate.jdbc.gate.enabled:false}") boolean enabled,
+                          @Value("${filmorate.jdbc.gate.permits:0}") int permits,
+                          @Value("${filmorate.jdbc.gate.timeout-ms:30000}") long timeoutMs) {
+        this.enabled = enabled;
+        this.permits = permits;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled || !(bean instanceof DataSource dataSource) || bean instanceof GatedDataSource) {
+            return bean;
+        }
+        int size = permits;
+        if (size <= 0) {
+            // до запуска пула Hikari не заданный размер равен -1, по умолчанию пул - 10 соединений
+            size = bean instanceof HikariDataSource hikari && hikari.getMaximumPoolSize() > 0
+                    ? hikari.getMaximumPoolSize() : DEFAULT_PERMITS;
+        }
+        GatedDataSource gated = new GatedDataSource(dataSource, size, timeoutMs);
+        log.info("Доступ к базе ограничен {} одновременными соединениями", size);
+        synchronized (this) {
+            gate = gated;
+            bindIfReady();
+        }
+        return gated;
+    }
+
+    // Реестр метрик и источник соединений создаются в неизвестном порядке: метрики привязываются ко второму
+    @Override
+    public synchronized void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        bindIfReady();
+    }
+
+    private void bindIfReady() {
+        if (gate != null && registry != null) {
+            gate.bindTo(registry);
+        }
+    }
+}
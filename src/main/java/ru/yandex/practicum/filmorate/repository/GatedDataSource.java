@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import ru.yandex.practicum.filmorate.repository.metrics.MeteredJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Источник соединений с честным семафором: соединение выдаётся, только когда есть свободное разрешение,
+// и разрешение возвращается при закрытии соединения. Ожидающие потоки встают в очередь по порядку прихода,
+// а не борются за соединения пула. Транзакция держит одно соединение и одно разрешение до фиксации
+public class GatedDataSource extends DelegatingDataSource {
+    private final Semaphore permits;
+    private final int size;
+    private final long timeoutNanos;
+    private volatile Timer waitTimer;
+
+    public GatedDataSource(DataSource target, int permits, long timeoutMs) {
+        super(target);
+        this.size = permits;
+        this.permits = new Semaphore(permits, true);
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        waitTimer = Timer.builder("filmorate.jdbc.gate.wait")
+                .description("Ожидание разрешения на соединение с базой")
+                .serviceLevelObjectives(MeteredJdbcTemplate.LATENCY_BUCKETS)
+                .register(registry);
+        Gauge.builder("filmorate.jdbc.gate.queued", permits, Semaphore::getQueueLength)
+                .description("Потоки в очереди за соединением с базой")
+                .register(registry);
+        Gauge.builder("filmorate.jdbc.gate.in-use", permits, gate -> size - gate.availablePermits())
+                .description("Выданные разрешения на соединение с базой")
+                .register(registry);
+    }
+
+    public int getPermits() {
+        return size;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return gated(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return gated(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Ожидание соединения с базой прервано");
+        }
+        Timer timer = waitTimer;
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            throw new SQLTransientConnectionException("Нет свободного соединения с базой за "
+                    + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " мс");
+        }
+    }
+
+    // Разрешение возвращается один раз, даже если соединение закрывают повторно
+    private Connection gated(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                        try {
+                            connection.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,5 @@
+package ru.yandex.practicum.filmorate.repository.director;
+
+// Режиссёр переименован или удалён: его имя входит в данные фильмов
+public record DirectorChangedEvent(long directorId) {
+}
@@ -0,0 +1,228 @@
+package ru.yandex.practicum.filmorate.repository.event;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.util.MpscRingBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+// События ленты пишутся при каждом лайке, отзыве и добавлении в друзья. В режиме async они складываются
+// в кольцевой буфер и записываются фоновым потоком пачками (batch insert) - по набору batch-size событий
+// или раз в flush-interval-ms. Если буфер переполнен, добавляющий поток ждёт до offer-timeout-ms,
+// затем дожидается записи буфера и пишет событие сам, чтобы порядок event_id совпадал с порядком действий.
+// Перед чтением ленты буфер дописывается, поэтому пользователь видит свои события.
+// В режиме sync события пишутся сразу, как и раньше. Записанные события раскладываются по лентам друзей
+@Slf4j
+@Primary
+@Repository
+public class BufferedEventStorage implements EventStorage {
+    private final EventRepository eventRepository;
+    private final FriendFeedStorage friendFeedStorage;
+    private final boolean async;
+    private final MpscRingBuffer<Event> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutNanos;
+    // ReentrantLock, а не synchronized: ожидание в synchronized закрепляет виртуальный поток за несущим
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushed = flushLock.newCondition();
+    private final Thread writer;
+    // число событий из буфера, которые уже записаны (или отброшены из-за ошибки записи)
+    private volatile long written;
+    private volatile boolean stopping;
+
+    public BufferedEventStorage(EventRepository eventRepository,
+                                FriendFeedStorage friendFeedStorage,
+                                MeterRegistry registry,
+                                @Value("${filmorate.events.write-mode:sync}") String writeMode,
+                                @Value("${filmorate.events.buffer-size:8192}") int bufferSize,
+                                @Value("${filmorate.events.batch-size:256}") int batchSize,
+                                @Value("${filmorate.events.flush-interval-ms:50}") long flushIntervalMs,
+                                @Value("${filmorate.events.offer-timeout-ms:1000}") long offerTimeoutMs) {
+        this.eventRepository = eventRepository;
+        this.friendFeedStorage = friendFeedStorage;
+        this.async = "async".equalsIgnoreCase(writeMode);
+        this.buffer = new MpscRingBuffer<>(bufferSize);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMs));
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, offerTimeoutMs));
+        Gauge.builder("filmorate.events.pending", buffer, MpscRingBuffer::size)
+                .description("События ленты, ожидающие записи")
+                .register(registry);
+        if (async) {
+            writer = new Thread(this::writeLoop, "event-writer");
+            writer.setDaemon(true);
+            writer.start();
+            log.info("События ленты пишутся асинхронно: буфер {}, пачка {}", buffer.capacity(), this.batchSize);
+        } else {
+            writer = null;
+        }
+    }
+
+    @Override
+    public void add(Event event) {
+        if (!async) {
+            writeNow(event);
+            return;
+        }
+        if (!stopping) {
+            if (buffer.offer(event)) {
+                if (buffer.size() >= batchSize) {
+                    LockSupport.unpark(writer);
+                }
+                return;
+            }
+            long deadline = System.nanoTime() + offerTimeoutNanos;
+            do {
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                if (buffer.offer(event)) {
+                    return;
+                }
+            } while (System.nanoTime() < deadline);
+            log.warn("Буфер событий ленты переполнен, событие записывается синхронно после буфера");
+        }
+        // мимо буфера событие пишется только после уже принятых в него, иначе порядок event_id нарушится
+        flush();
+        writeNow(event);
+    }
+
+    @Override
+    public void addAll(List<Event> events) {
+        if (!async) {
+            eventRepository.addAll(events);
+            fanOut(events);
+            return;
+        }
+        if (stopping) {
+            flush();
+            eventRepository.addAll(events);
+            fanOut(events);
+            return;
+        }
+        for (Event event : events) {
+            add(event);
+        }
+    }
+
+    @Override
+    public List<Event> getFeed(long userId) {
+        flush();
+        return eventRepository.getFeed(userId);
+    }
+
+    @Override
+    public List<Event> getFeed(long userId, long afterTimestamp, long afterEventId, int limit) {
+        flush();
+        return eventRepository.getFeed(userId, afterTimestamp, afterEventId, limit);
+    }
+
+    // Ждёт записи всех событий, добавленных в буфер до вызова
+    public void flush() {
+        if (!async) {
+            return;
+        }
+        long target = buffer.enqueued();
+        flushLock.lock();
+        try {
+            while (written < target && writer.isAlive()) {
+                LockSupport.unpark(writer);
+                try {
+                    flushed.await(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!async || stopping) {
+            return;
+        }
+        stopping = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Запись событий ленты остановлена, записано из буфера: {}", written);
+    }
+
+    private void writeLoop() {
+        List<Event> batch = new ArrayList<>(batchSize);
+        while (true) {
+            batch.clear();
+            int drained = buffer.drainTo(batch, batchSize);
+            if (drained > 0) {
+                write(batch);
+                flushLock.lock();
+                try {
+                    written += drained;
+                    flushed.signalAll();
+                } finally {
+                    flushLock.unlock();
+                }
+                continue;
+            }
+            // позиция может быть уже занята писателем, но событие ещё не положено в ячейку
+            if (stopping && written == buffer.enqueued()) {
+                return;
+            }
+            LockSupport.parkNanos(this, stopping ? TimeUnit.MICROSECONDS.toNanos(100) : flushIntervalNanos);
+        }
+    }
+
+    private void writeNow(Event event) {
+        eventRepository.add(event);
+        fanOut(List.of(event));
+    }
+
+    private void write(List<Event> batch) {
+        try {
+            eventRepository.addAll(batch);
+            fanOut(batch);
+        } catch (DataAccessException e) {
+            // например, пользователь удалён, пока событие ждало в буфере: пишем по одному и пропускаем ошибочные
+            log.warn("Ошибка пакетной записи событий ленты: {}", e.getMessage());
+            List<Event> saved = new ArrayList<>(batch.size());
+            for (Event event : batch) {
+                try {
+                    eventRepository.add(event);
+                    saved.add(event);
+                } catch (DataAccessException single) {
+                    log.warn("Событие ленты не записано: {}, {}", event, single.getMessage());
+                }
+            }
+            fanOut(saved);
+        } catch (RuntimeException e) {
+            log.error("Ошибка записи событий ленты, пропущено событий: {}", batch.size(), e);
+        }
+    }
+
+    // Ошибка раскладки по лентам друзей не должна отменять уже записанное событие
+    private void fanOut(List<Event> events) {
+        try {
+            friendFeedStorage.fanOut(events);
+        } catch (DataAccessException e) {
+            log.warn("Ошибка добавления событий в ленты друзей: {}", e.getMessage());
+        }
+    }
+}
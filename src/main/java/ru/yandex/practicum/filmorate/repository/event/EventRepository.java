@@ -4,9 +4,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.repository.BaseRepository;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
@@ -14,7 +16,15 @@ import java.util.List;
 public class EventRepository extends BaseRepository<Event> implements EventStorage {
     private static final String INSERT_QUERY = "INSERT INTO events(timestamp, user_id, event_type, operation, " +
             "entity_id) VALUES (?, ?, ?, ?, ?)";
-    private static final String USER_EVENTS_QUERY = "SELECT * FROM events WHERE user_id = ?";
+    // H2 на равной оценке выбирает индекс внешнего ключа по user_id и сортирует ленту отдельно,
+    // поэтому индекс (user_id, timestamp, event_id) указан явно, а user_id добавлен в ORDER BY,
+    // чтобы строки читались из индекса уже упорядоченными и чтение останавливалось на LIMIT
+    private static final String USER_EVENTS_QUERY = "SELECT * FROM events USE INDEX (events_user_time_idx) " +
+            "WHERE user_id = ? ORDER BY user_id, timestamp, event_id";
+    // timestamp >= ? задаёт начало диапазона индекса, события с тем же timestamp отсекаются по event_id
+    private static final String USER_EVENTS_PAGE_QUERY = "SELECT * FROM events USE INDEX (events_user_time_idx) " +
+            "WHERE user_id = ? AND timestamp >= ? AND (timestamp > ? OR event_id > ?) " +
+            "ORDER BY user_id, timestamp, event_id LIMIT ?";
 
     public EventRepository(JdbcTemplate jdbc, RowMapper<Event> mapper) {
         super(jdbc, mapper);
@@ -22,7 +32,7 @@ public class EventRepository extends BaseRepository<Event> implements EventStora
 
     @Override
     public void add(Event event) {
-        insert(
+        long id = insert(
                 INSERT_QUERY,
                 event.getTimestamp(),
                 event.getUserId(),
@@ -30,10 +40,39 @@ public class EventRepository extends BaseRepository<Event> implements EventStora
                 event.getOperation().toString(),
                 event.getEntityId()
         );
+        event.setEventId(id);
+    }
+
+    // пачка пишется в одной транзакции: при ошибке не остаётся частично записанных событий
+    @Override
+    @Transactional
+    public void addAll(List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<Object[]> batchArgs = new ArrayList<>(events.size());
+        for (Event event : events) {
+            batchArgs.add(new Object[]{
+                    event.getTimestamp(),
+                    event.getUserId(),
+                    event.getEventType().toString(),
+                    event.getOperation().toString(),
+                    event.getEntityId()
+            });
+        }
+        long[] ids = insertMany(INSERT_QUERY, batchArgs);
+        for (int i = 0; i < ids.length; i++) {
+            events.get(i).setEventId(ids[i]);
+        }
     }
 
     @Override
     public List<Event> getFeed(long userId) {
         return findMany(USER_EVENTS_QUERY, userId);
     }
+
+    @Override
+    public List<Event> getFeed(long userId, long afterTimestamp, long afterEventId, int limit) {
+        return findMany(USER_EVENTS_PAGE_QUERY, userId, afterTimestamp, afterTimestamp, afterEventId, limit);
+    }
 }
@@ -7,5 +7,9 @@ import java.util.List;
 public interface EventStorage {
     void add(Event event);
 
+    void addAll(List<Event> events);
+
     List<Event> getFeed(long userId);
+
+    List<Event> getFeed(long userId, long afterTimestamp, long afterEventId, int limit);
 }
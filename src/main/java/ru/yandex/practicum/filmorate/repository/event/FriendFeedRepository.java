@@ -0,0 +1,194 @@
+package ru.yandex.practicum.filmorate.repository.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.repository.BaseRepository;
+import ru.yandex.practicum.filmorate.repository.user.FriendGraph;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Лента друзей собирается при записи: событие раскладывается по лентам всех, у кого автор в друзьях,
+// и чтение страницы - это один проход по ключу friend_feed. У автора с числом подписчиков больше
+// hub-followers события не раскладываются, их подписчики дочитывают из events при запросе ленты.
+// Подписчики авторов берутся из графа друзей в памяти, без запросов к friends.
+// Лента каждого пользователя ограничена timeline-size последними событиями: после каждых trim-every
+// добавленных в неё событий старые удаляются. Дочитываются тоже только timeline-size последних событий
+// популярных друзей. Автор, переставший быть популярным, раскладывает свои события по лентам подписчиков,
+// иначе события, записанные без раскладки, пропали бы из их лент
+@Slf4j
+@Repository
+public class FriendFeedRepository extends BaseRepository<Event> implements FriendFeedStorage {
+    private static final String INSERT_QUERY = "MERGE INTO friend_feed(user_id, timestamp, event_id, author_id) " +
+            "KEY(user_id, timestamp, event_id) VALUES (?, ?, ?, ?)";
+    private static final String BACKFILL_QUERY = "MERGE INTO friend_feed(user_id, timestamp, event_id, author_id) " +
+            "KEY(user_id, timestamp, event_id) SELECT ?, timestamp, event_id, user_id FROM events " +
+            "WHERE user_id = ? ORDER BY timestamp DESC, event_id DESC LIMIT ?";
+    private static final String UNFOLLOW_QUERY = "DELETE FROM friend_feed WHERE user_id = ? AND author_id = ?";
+    private static final String TIMELINE_PAGE_QUERY = "SELECT e.* FROM friend_feed AS ff " +
+            "JOIN events AS e ON e.event_id = ff.event_id " +
+            "WHERE ff.user_id = ? AND ff.timestamp >= ? AND (ff.timestamp > ? OR ff.event_id > ?) " +
+            "ORDER BY ff.user_id, ff.timestamp, ff.event_id LIMIT ?";
+    private static final String HUB_EVENTS_PAGE_QUERY = "SELECT * FROM events WHERE user_id = ANY(?) " +
+            "AND timestamp >= ? AND (timestamp > ? OR event_id > ?) ORDER BY timestamp, event_id LIMIT ?";
+    private static final String HUB_EVENTS_BOUNDARY_QUERY = "SELECT timestamp, event_id FROM events " +
+            "WHERE user_id = ANY(?) ORDER BY timestamp DESC, event_id DESC OFFSET ? ROWS FETCH FIRST 1 ROW ONLY";
+    private static final String TIMELINE_BOUNDARY_QUERY = "SELECT timestamp, event_id FROM friend_feed " +
+            "WHERE user_id = ? ORDER BY user_id DESC, timestamp DESC, event_id DESC OFFSET ? ROWS FETCH FIRST 1 ROW ONLY";
+    private static final String TRIM_QUERY = "DELETE FROM friend_feed WHERE user_id = ? " +
+            "AND (timestamp < ? OR timestamp = ? AND event_id < ?)";
+    private static final Comparator<Event> FEED_ORDER = Comparator.comparingLong(Event::getTimestamp)
+            .thenComparingLong(Event::getEventId);
+    private static final Comparator<long[]> FEED_CURSOR_ORDER = Comparator.<long[]>comparingLong(cursor -> cursor[0])
+            .thenComparingLong(cursor -> cursor[1]);
+
+    private final FriendGraph friendGraph;
+    private final int hubFollowers;
+    private final int timelineSize;
+    private final int trimEvery;
+    // сколько событий добавлено в ленту пользователя с последней обрезки
+    private final Map<Long, Integer> addedSinceTrim = new ConcurrentHashMap<>();
+
+    public FriendFeedRepository(JdbcTemplate jdbc, RowMapper<Event> mapper, FriendGraph friendGraph,
+                                @Value("${filmorate.feed.hub-followers:1000}") int hubFollowers,
+                                @Value("${filmorate.feed.timeline-size:500}") int timelineSize) {
+        super(jdbc, mapper);
+        this.friendGraph = friendGraph;
+        this.hubFollowers = hubFollowers;
+        this.timelineSize = Math.max(1, timelineSize);
+        this.trimEvery = Math.max(1, this.timelineSize / 4);
+    }
+
+    @Override
+    public void fanOut(List<Event> events) {
+        Map<Long, SortedLongSet> followersByAuthor = new HashMap<>();
+        Map<Long, Integer> addedByFollower = new HashMap<>();
+        List<Object[]> batchArgs = new ArrayList<>();
+        for (Event event : events) {
+            if (event.getEventId() == 0) {
+                continue;
+            }
+            SortedLongSet followers = followersByAuthor.computeIfAbsent(event.getUserId(),
+                    friendGraph::getFollowers);
+            if (followers.size() > hubFollowers) {
+                continue;
+            }
+            for (int i = 0; i < followers.size(); i++) {
+                long follower = followers.get(i);
+                batchArgs.add(new Object[]{follower, event.getTimestamp(), event.getEventId(), event.getUserId()});
+                addedByFollower.merge(follower, 1, Integer::sum);
+            }
+        }
+        if (batchArgs.isEmpty()) {
+            return;
+        }
+        jdbc.batchUpdate(INSERT_QUERY, batchArgs);
+        addedByFollower.forEach((follower, added) -> {
+            if (addedSinceTrim.merge(follower, added, Integer::sum) >= trimEvery) {
+                addedSinceTrim.remove(follower);
+                trim(follower);
+            }
+        });
+    }
+
+    @Override
+    public void follow(long userId, long friendId) {
+        if (friendGraph.getFollowers(friendId).size() > hubFollowers) {
+            return;
+        }
+        jdbc.update(BACKFILL_QUERY, userId, friendId, timelineSize);
+        trim(userId);
+    }
+
+    // Граф друзей к этому моменту уже обновлён: подписчиков у friendId на одного меньше, чем до отписки
+    @Override
+    public void unfollow(long userId, long friendId) {
+        jdbc.update(UNFOLLOW_QUERY, userId, friendId);
+        SortedLongSet followers = friendGraph.getFollowers(friendId);
+        if (followers.size() == hubFollowers) {
+            log.debug("Пользователь {} больше не популярен, его события раскладываются по {} лентам",
+                    friendId, followers.size());
+            for (int i = 0; i < followers.size(); i++) {
+                long follower = followers.get(i);
+                jdbc.update(BACKFILL_QUERY, follower, friendId, timelineSize);
+                trim(follower);
+            }
+        }
+    }
+
+    @Override
+    public List<Event> getFeed(long userId, long afterTimestamp, long afterEventId, int limit) {
+        List<Event> timeline = findMany(TIMELINE_PAGE_QUERY, userId, afterTimestamp, afterTimestamp, afterEventId,
+                limit);
+        List<Long> hubs = getHubFriends(userId);
+        if (hubs.isEmpty()) {
+            return timeline;
+        }
+        Long[] hubIds = hubs.toArray(new Long[0]);
+        long[] from = {afterTimestamp, afterEventId};
+        long[] windowStart = getHubWindowStart(hubIds);
+        if (windowStart != null && FEED_CURSOR_ORDER.compare(windowStart, from) > 0) {
+            from = windowStart;
+        }
+        List<Event> pulled = findMany(HUB_EVENTS_PAGE_QUERY, hubIds, from[0], from[0], from[1], limit);
+        // событие автора, ставшего популярным, могло попасть и в ленту, и в дочитанную часть
+        Map<Long, Event> merged = new LinkedHashMap<>();
+        for (Event event : timeline) {
+            merged.put(event.getEventId(), event);
+        }
+        for (Event event : pulled) {
+            merged.putIfAbsent(event.getEventId(), event);
+        }
+        return merged.values().stream()
+                .sorted(FEED_ORDER)
+                .limit(limit)
+                .toList();
+    }
+
+    // Друзья пользователя, чьи события не раскладываются по лентам из-за числа подписчиков
+    private List<Long> getHubFriends(long userId) {
+        List<Long> hubs = new ArrayList<>();
+        friendGraph.read(view -> view.friends(userId).forEach(friendId -> {
+            if (view.followers(friendId).size() > hubFollowers) {
+                hubs.add(friendId);
+            }
+        }));
+        return hubs;
+    }
+
+    // Курсор перед самым старым из timeline-size последних событий популярных друзей;
+    // null - событий меньше, и дочитываются все
+    private long[] getHubWindowStart(Long[] hubIds) {
+        try {
+            return jdbc.queryForObject(HUB_EVENTS_BOUNDARY_QUERY,
+                    (rs, rowNum) -> new long[]{rs.getLong("timestamp"), rs.getLong("event_id") - 1},
+                    hubIds, timelineSize - 1);
+        } catch (EmptyResultDataAccessException ignored) {
+            return null;
+        }
+    }
+
+    private void trim(long userId) {
+        long[] boundary;
+        try {
+            boundary = jdbc.queryForObject(TIMELINE_BOUNDARY_QUERY,
+                    (rs, rowNum) -> new long[]{rs.getLong("timestamp"), rs.getLong("event_id")},
+                    userId, timelineSize - 1);
+        } catch (EmptyResultDataAccessException ignored) {
+            return;
+        }
+        int removed = jdbc.update(TRIM_QUERY, userId, boundary[0], boundary[0], boundary[1]);
+        log.debug("Лента друзей пользователя {} обрезана на {} событий", userId, removed);
+    }
+}
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.repository.event;
+
+import ru.yandex.practicum.filmorate.model.Event;
+
+import java.util.List;
+
+public interface FriendFeedStorage {
+    void fanOut(List<Event> events);
+
+    void follow(long userId, long friendId);
+
+    void unfollow(long userId, long friendId);
+
+    List<Event> getFeed(long userId, long afterTimestamp, long afterEventId, int limit);
+}
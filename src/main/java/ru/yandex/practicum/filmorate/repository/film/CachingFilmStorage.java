@@ -0,0 +1,242 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.repository.director.DirectorChangedEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Кэш собранных фильмов (с лайками, жанрами и режиссёрами) перед FilmRepository: ограничен max-size
+// записями (вытеснение W-TinyLFU) и временем жизни ttl-seconds. Запись удаляется при изменении фильма
+// через это хранилище, а изменения в обход него приходят событиями FilmChangedEvent и DirectorChangedEvent.
+// Одновременные промахи по одному id ждут одной загрузки из базы. Жанры и MPA неизменяемы.
+// Наружу отдаются глубокие копии, чтобы изменение полученного фильма не портило кэш
+@Slf4j
+@Primary
+@Repository
+public class CachingFilmStorage implements FilmStorage {
+    private final FilmRepository filmRepository;
+    private final Cache<Long, Film> cache;
+    // число удалений из кэша: по нему пакетная загрузка узнаёт, что фильм мог измениться, пока она читала
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public CachingFilmStorage(FilmRepository filmRepository, MeterRegistry registry,
+                              @Value("${filmorate.films.cache.max-size:10000}") long maxSize,
+                              @Value("${filmorate.films.cache.ttl-seconds:600}") long ttlSeconds) {
+        this.filmRepository = filmRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "films");
+    }
+
+    @Override
+    public Film get(long id) {
+        return copy(cache.get(id, filmRepository::get));
+    }
+
+    // Недостающие в кэше фильмы загружаются одним запросом, порядок id сохраняется. В отличие от get(),
+    // пакетная загрузка не блокирует ключи: если за время чтения кэш что-то удалил, прочитанное могло
+    // устареть, и загруженные фильмы убираются из кэша
+    @Override
+    public List<Film> getByIds(List<Long> ids) {
+        Map<Long, Film> found = new HashMap<>(cache.getAllPresent(ids));
+        List<Long> missing = ids.stream()
+                .filter(id -> !found.containsKey(id))
+                .distinct()
+                .toList();
+        if (!missing.isEmpty()) {
+            long generation = invalidations.get();
+            List<Film> loaded = filmRepository.getByIds(missing);
+            for (Film film : loaded) {
+                found.put(film.getId(), film);
+                cache.asMap().putIfAbsent(film.getId(), film);
+            }
+            if (invalidations.get() != generation) {
+                loaded.forEach(film -> cache.invalidate(film.getId()));
+            }
+        }
+        List<Film> films = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Film film = found.get(id);
+            if (film != null) {
+                films.add(copy(film));
+            }
+        }
+        return films;
+    }
+
+    @Override
+    public boolean exists(long id) {
+        // asMap не учитывается в статистике кэша: проверка существования не считается попаданием или промахом
+        return cache.asMap().containsKey(id) || filmRepository.exists(id);
+    }
+
+    @Override
+    public Film add(Film film) {
+        return filmRepository.add(film);
+    }
+
+    @Override
+    public void addAll(List<Film> films) {
+        filmRepository.addAll(films);
+    }
+
+    @Override
+    public void update(Film film) {
+        try {
+            filmRepository.update(film);
+        } finally {
+            invalidate(film.getId());
+        }
+    }
+
+    @Override
+    public void delete(long id) {
+        try {
+            filmRepository.delete(id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public boolean like(long filmId, long userId) {
+        boolean changed = filmRepository.like(filmId, userId);
+        if (changed) {
+            invalidate(filmId);
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean removeLike(long filmId, long userId) {
+        boolean changed = filmRepository.removeLike(filmId, userId);
+        if (changed) {
+            invalidate(filmId);
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean[] setLikes(List<LikeChange> changes) {
+        boolean[] changed = filmRepository.setLikes(changes);
+        for (int i = 0; i < changed.length; i++) {
+            if (changed[i]) {
+                invalidate(changes.get(i).filmId());
+            }
+        }
+        return changed;
+    }
+
+    @EventListener
+    public void onFilmChanged(FilmChangedEvent event) {
+        invalidations.incrementAndGet();
+        cache.invalidateAll(event.filmIds());
+    }
+
+    @EventListener
+    public void onDirectorChanged(DirectorChangedEvent event) {
+        invalidations.incrementAndGet();
+        cache.asMap().values().removeIf(film -> hasDirector(film, event.directorId()));
+    }
+
+    @Override
+    public Set<Long> getExistingIds(Collection<Long> ids) {
+        return filmRepository.getExistingIds(ids);
+    }
+
+    @Override
+    public List<Film> getAll() {
+        return filmRepository.getAll();
+    }
+
+    @Override
+    public List<Film> getPage(long afterId, int limit) {
+        return filmRepository.getPage(afterId, limit);
+    }
+
+    @Override
+    public List<Long> getLikedFilmIds(long userId) {
+        return filmRepository.getLikedFilmIds(userId);
+    }
+
+    @Override
+    public int repairLikeCounts() {
+        return filmRepository.repairLikeCounts();
+    }
+
+    @Override
+    public List<Film> getDirectorFilms(long directorId, String sortBy) {
+        return filmRepository.getDirectorFilms(directorId, sortBy);
+    }
+
+    @Override
+    public List<Film> getCommonFilms(long userId, long friendId) {
+        return filmRepository.getCommonFilms(userId, friendId);
+    }
+
+    private void invalidate(long id) {
+        invalidations.incrementAndGet();
+        cache.invalidate(id);
+    }
+
+    private static boolean hasDirector(Film film, long directorId) {
+        for (Director director : film.getDirectors()) {
+            if (director.getId() != null && director.getId() == directorId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Film copy(Film film) {
+        Film copy = new Film();
+        copy.setId(film.getId());
+        copy.setName(film.getName());
+        copy.setDescription(film.getDescription());
+        copy.setReleaseDate(film.getReleaseDate());
+        copy.setDuration(film.getDuration());
+        if (film.getMpa() != null) {
+            Mpa mpa = new Mpa();
+            mpa.setId(film.getMpa().getId());
+            mpa.setName(film.getMpa().getName());
+            copy.setMpa(mpa);
+        }
+        copy.getLikes().addAll(film.getLikes());
+        for (Genre genre : film.getGenres()) {
+            Genre genreCopy = new Genre();
+            genreCopy.setId(genre.getId());
+            genreCopy.setName(genre.getName());
+            copy.addGenre(genreCopy);
+        }
+        for (Director director : film.getDirectors()) {
+            Director directorCopy = new Director();
+            directorCopy.setId(director.getId());
+            directorCopy.setName(director.getName());
+            copy.addDirector(directorCopy);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import java.util.Collection;
+
+// Фильмы изменились в обход FilmStorage (например, лайки удалены каскадно вместе с пользователем)
+public record FilmChangedEvent(Collection<Long> filmIds) {
+}
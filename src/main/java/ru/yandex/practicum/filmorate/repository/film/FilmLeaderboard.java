@@ -0,0 +1,209 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Рейтинг фильмов по количеству лайков, поддерживаемый в памяти.
+// Отдельные упорядоченные множества ведутся для каждого жанра и года выпуска,
+// поэтому /films/popular не выполняет GROUP BY по таблице likes
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmLeaderboard {
+    private static final String LOAD_FILMS_QUERY = "SELECT film_id, YEAR(release_date) AS release_year, like_count " +
+            "FROM films";
+    private static final String LOAD_GENRES_QUERY = "SELECT film_id, genre_id FROM film_genres";
+    private static final Comparator<Rank> ORDER = Comparator.comparingLong(Rank::likes).reversed()
+            .thenComparingLong(Rank::filmId);
+
+    private final JdbcTemplate jdbc;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final NavigableSet<Rank> all = new TreeSet<>(ORDER);
+    private final Map<Long, NavigableSet<Rank>> byGenre = new HashMap<>();
+    private final Map<Integer, NavigableSet<Rank>> byYear = new HashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        Map<Long, Entry> loaded = new HashMap<>();
+        jdbc.query(LOAD_FILMS_QUERY, rs -> {
+            long filmId = rs.getLong("film_id");
+            loaded.put(filmId, new Entry(filmId, rs.getInt("release_year"), rs.getLong("like_count")));
+        });
+        jdbc.query(LOAD_GENRES_QUERY, rs -> {
+            Entry entry = loaded.get(rs.getLong("film_id"));
+            if (entry != null) {
+                entry.genres.add(rs.getLong("genre_id"));
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            all.clear();
+            byGenre.clear();
+            byYear.clear();
+            for (Entry entry : loaded.values()) {
+                entries.put(entry.filmId, entry);
+                index(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Рейтинг фильмов загружен: {} фильмов", loaded.size());
+    }
+
+    public void put(Film film) {
+        lock.writeLock().lock();
+        try {
+            Entry old = entries.remove(film.getId());
+            long likes = 0;
+            if (old != null) {
+                unindex(old);
+                likes = old.likes;
+            }
+            Entry entry = new Entry(film.getId(), film.getReleaseDate().getYear(), likes);
+            for (Genre genre : film.getGenres()) {
+                entry.genres.add(genre.getId());
+            }
+            entries.put(entry.filmId, entry);
+            index(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long filmId) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.remove(filmId);
+            if (entry != null) {
+                unindex(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void like(long filmId) {
+        changeLikes(filmId, 1);
+    }
+
+    public void removeLike(long filmId) {
+        changeLikes(filmId, -1);
+    }
+
+    public List<Long> getTop(long count, Long genreId, Integer year) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Rank> source;
+            if (genreId != null) {
+                source = byGenre.getOrDefault(genreId, Collections.emptyNavigableSet());
+            } else if (year != null) {
+                source = byYear.getOrDefault(year, Collections.emptyNavigableSet());
+            } else {
+                source = all;
+            }
+
+            List<Long> top = new ArrayList<>();
+            for (Rank rank : source) {
+                if (top.size() >= count) {
+                    break;
+                }
+                if (year == null || entries.get(rank.filmId()).year == year) {
+                    top.add(rank.filmId());
+                }
+            }
+            return top;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> rank(Collection<Long> filmIds) {
+        lock.readLock().lock();
+        try {
+            List<Rank> ranks = new ArrayList<>(filmIds.size());
+            for (Long filmId : filmIds) {
+                Entry entry = entries.get(filmId);
+                ranks.add(entry != null ? entry.rank() : new Rank(filmId, 0));
+            }
+            ranks.sort(ORDER);
+            return ranks.stream().map(Rank::filmId).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void changeLikes(long filmId, long delta) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(filmId);
+            if (entry == null) {
+                return;
+            }
+            unindex(entry);
+            entry.likes = Math.max(0, entry.likes + delta);
+            index(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(Entry entry) {
+        Rank rank = entry.rank();
+        all.add(rank);
+        byYear.computeIfAbsent(entry.year, year -> new TreeSet<>(ORDER)).add(rank);
+        for (long genreId : entry.genres) {
+            byGenre.computeIfAbsent(genreId, id -> new TreeSet<>(ORDER)).add(rank);
+        }
+    }
+
+    private void unindex(Entry entry) {
+        Rank rank = entry.rank();
+        all.remove(rank);
+        removeFrom(byYear, entry.year, rank);
+        for (long genreId : entry.genres) {
+            removeFrom(byGenre, genreId, rank);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, NavigableSet<Rank>> partitions, K key, Rank rank) {
+        NavigableSet<Rank> partition = partitions.get(key);
+        if (partition != null) {
+            partition.remove(rank);
+            if (partition.isEmpty()) {
+                partitions.remove(key);
+            }
+        }
+    }
+
+    private record Rank(long filmId, long likes) {
+    }
+
+    private static class Entry {
+        private final long filmId;
+        private final int year;
+        private final Set<Long> genres = new HashSet<>();
+        private long likes;
+
+        Entry(long filmId, int year, long likes) {
+            this.filmId = filmId;
+            this.year = year;
+            this.likes = likes;
+        }
+
+        Rank rank() {
+            return new Rank(filmId, likes);
+        }
+    }
+}
@@ -1,144 +1,170 @@
 package ru.yandex.practicum.filmorate.repository.film;
 
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.exceptions.InternalServerException;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeChange;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Operation;
 import ru.yandex.practicum.filmorate.repository.BaseRepository;
+import ru.yandex.practicum.filmorate.repository.genre.GenreStorage;
 import ru.yandex.practicum.filmorate.repository.mappers.DirectorRowMapper;
-import ru.yandex.practicum.filmorate.repository.mappers.GenreRowMapper;
-import ru.yandex.practicum.filmorate.repository.mappers.MpaRowMapper;
+import ru.yandex.practicum.filmorate.repository.mpa.MpaStorage;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @Slf4j
 @Component("filmDb")
 public class FilmRepository extends BaseRepository<Film> implements FilmStorage {
-    private static final String INSERT_QUERY = "INSERT INTO films(name, description, release_date, duration)" +
-            "VALUES (?, ?, ?, ?)";
-    private static final String INSERT_LIKES_QUERY = "MERGE INTO likes(film_id, user_id) VALUES (?, ?)";
+    private static final String INSERT_QUERY = "INSERT INTO films(name, description, release_date, duration, " +
+            "mpa_id) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_LIKES_QUERY = "MERGE INTO likes AS l " +
+            "USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT))) AS v(film_id, user_id) " +
+            "ON l.film_id = v.film_id AND l.user_id = v.user_id " +
+            "WHEN NOT MATCHED THEN INSERT (film_id, user_id) VALUES (v.film_id, v.user_id)";
     private static final String INSERT_GENRES_QUERY = "INSERT INTO film_genres(film_id, genre_id) VALUES (?, ?)";
-    private static final String REMOVE_GENRES_QUERY = "DELETE FROM film_genres WHERE film_id = ?";
+    private static final String REMOVE_GENRE_QUERY = "DELETE FROM film_genres WHERE film_id = ? AND genre_id = ?";
     private static final String INSERT_DIRECTORS_QUERY = "INSERT INTO film_directors(film_id, director_id) " +
             "VALUES (?, ?)";
-    private static final String REMOVE_DIRECTORS_QUERY = "DELETE FROM film_directors WHERE film_id = ?";
+    private static final String REMOVE_DIRECTOR_QUERY = "DELETE FROM film_directors " +
+            "WHERE film_id = ? AND director_id = ?";
+    private static final String FILM_LINKS_QUERY = "SELECT 'genre' AS link, genre_id AS link_id FROM film_genres " +
+            "WHERE film_id = ? UNION ALL " +
+            "SELECT 'director', director_id FROM film_directors WHERE film_id = ?";
     private static final String UPDATE_QUERY = "UPDATE films SET name = ?, description = ?, release_date = ?, " +
             "duration = ?, mpa_id = ? WHERE film_id = ?";
     private static final String DELETE_QUERY = "DELETE FROM films WHERE film_id = ?";
     private static final String FIND_BY_ID_QUERY = "SELECT * FROM films WHERE film_id = ?";
     private static final String FIND_ALL_QUERY = "SELECT * FROM films";
+    private static final String FIND_PAGE_QUERY = "SELECT * FROM films WHERE film_id > ? ORDER BY film_id LIMIT ?";
+    private static final String FIND_BY_IDS_QUERY = "SELECT * FROM films WHERE film_id = ANY(?)";
+    private static final String USER_LIKED_FILMS_QUERY = "SELECT film_id FROM likes WHERE user_id = ?";
     private static final String IS_EXIST_QUERY = "SELECT COUNT(*) FROM films WHERE film_id = ?";
-    private static final String FILM_GENRES_QUERY = "SELECT * FROM film_genres AS fg JOIN genres AS g " +
-            "ON fg.genre_id = g.genre_id  WHERE film_id = ?";
+    private static final String EXISTING_IDS_QUERY = "SELECT film_id FROM films WHERE film_id = ANY(?)";
+    private static final String FILMS_GENRES_QUERY = "SELECT film_id, genre_id FROM film_genres " +
+            "WHERE film_id = ANY(?) ORDER BY film_id, genre_id";
     private static final String DISLIKE_QUERY = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
-    private static final String MPA_QUERY = "SELECT m.mpa_id, m.name FROM films AS f JOIN mpa AS m ON " +
-            "f.mpa_id = m.mpa_id WHERE film_id = ?";
-    private static final String TOP_QUERY = "SELECT f.*, COUNT(l.user_id) FROM films AS f LEFT JOIN likes AS l ON " +
-            "f.film_id = l.film_id GROUP BY f.film_id ORDER BY COUNT(l.user_id) DESC LIMIT ?";
-    private static final String GET_LIKES_QUERY = "SELECT user_id FROM likes WHERE film_id = ?";
-    private static final String DIRECTOR_FILMS_QUERY = "SELECT f.* FROM films AS f " +
+    private static final String INCREMENT_LIKE_COUNT_QUERY = "UPDATE films SET like_count = like_count + 1 " +
+            "WHERE film_id = ?";
+    private static final String DECREMENT_LIKE_COUNT_QUERY = "UPDATE films SET like_count = like_count - 1 " +
+            "WHERE film_id = ? AND like_count > 0";
+    private static final String ADD_LIKE_COUNT_QUERY = "UPDATE films SET like_count = GREATEST(like_count + ?, 0) " +
+            "WHERE film_id = ?";
+    private static final String REPAIR_LIKE_COUNT_QUERY = "UPDATE films AS f " +
+            "SET like_count = (SELECT COUNT(*) FROM likes AS l WHERE l.film_id = f.film_id) " +
+            "WHERE like_count <> (SELECT COUNT(*) FROM likes AS l WHERE l.film_id = f.film_id)";
+    // в порядке первичного ключа: id пользователей добавляются в конец отсортированного массива лайков фильма
+    private static final String FILMS_LIKES_QUERY = "SELECT film_id, user_id FROM likes WHERE film_id = ANY(?) " +
+            "ORDER BY film_id, user_id";
+    private static final String DIRECTOR_FILMS_BY_LIKES_QUERY = "SELECT f.* FROM films AS f " +
             "JOIN film_directors AS fd ON fd.film_id = f.film_id " +
-            "LEFT JOIN likes AS l ON f.film_id = l.film_id " +
-            "WHERE fd.director_id = ? GROUP BY f.film_id ORDER BY ";
-    private static final String FILM_DIRECTORS_QUERY = "SELECT d.* FROM film_directors AS fd JOIN directors AS d " +
-            "ON fd.director_id = d.director_id WHERE fd.film_id = ?";
-    private static final String FIND_RECOMMENDATION_FILMS = "SELECT f.*, COUNT(l_all.user_id) AS like_count " +
-            "FROM films AS f " +
-            "JOIN likes AS l ON l.film_id = f.film_id " +
-            "LEFT JOIN likes AS l_all ON l_all.film_id = f.film_id " +
-            "WHERE l.user_id = ? AND f.film_id NOT IN (SELECT film_id FROM likes WHERE user_id = ?) " +
-            "GROUP BY f.film_id " +
-            "ORDER BY like_count DESC " +
-            "LIMIT 5";
-    private static final String FILMS_SEARCH_BY_TITLE = "SELECT f.* FROM films AS f " +
-            "LEFT JOIN likes AS l ON f.film_id = l.film_id " +
-            "WHERE LOWER(f.name) LIKE LOWER('%' || ? || '%') GROUP BY f.film_id ORDER BY COUNT(l.user_id) DESC";
-    private static final String FILMS_SEARCH_BY_DIRECTOR = "SELECT f.* FROM films AS f " +
+            "WHERE fd.director_id = ? ORDER BY f.like_count DESC, f.film_id";
+    private static final String DIRECTOR_FILMS_BY_YEAR_QUERY = "SELECT f.* FROM films AS f " +
             "JOIN film_directors AS fd ON fd.film_id = f.film_id " +
-            "LEFT JOIN directors AS d ON d.director_id = fd.director_id " +
-            "LEFT JOIN likes AS l ON f.film_id = l.film_id " +
-            "WHERE LOWER(d.name) LIKE LOWER('%' || ? || '%') " +
-            "GROUP BY f.film_id ORDER BY COUNT(l.user_id) DESC";
-    private static final String FILMS_SEARCH_BY_DIRECTOR_OR_TITLE = "SELECT f.* FROM films AS f " +
-            "LEFT JOIN film_directors AS fd ON fd.film_id = f.film_id " +
-            "LEFT JOIN directors AS d ON d.director_id = fd.director_id " +
-            "LEFT JOIN likes AS l ON f.film_id = l.film_id " +
-            "WHERE LOWER(f.name) LIKE LOWER('%' || ? || '%') " +
-            "OR LOWER(d.name) LIKE LOWER('%' || ? || '%') " +
-            "GROUP BY f.film_id ORDER BY COUNT(l.user_id) DESC";
-    private static final String TOP_BY_GENRE_AND_YEAR = """
-            SELECT f.*, COUNT(l.user_id) as likes_count\s
-            FROM films AS f\s
-            LEFT JOIN likes AS l ON f.film_id = l.film_id
-            JOIN film_genres AS fg ON f.film_id = fg.film_id
-            WHERE fg.genre_id = ? AND YEAR(f.release_date) = ?
-            GROUP BY f.film_id\s
-            ORDER BY COUNT(l.user_id) DESC\s
-            LIMIT ?
-            \s""";
-    private static final String TOP_BY_GENRE = """
-             SELECT f.*, COUNT(l.user_id) as likes_count\s
-             FROM films AS f\s
-             LEFT JOIN likes AS l ON f.film_id = l.film_id
-             JOIN film_genres AS fg ON f.film_id = fg.film_id
-             WHERE fg.genre_id = ?
-             GROUP BY f.film_id\s
-             ORDER BY COUNT(l.user_id) DESC\s
-             LIMIT ?
-            \s""";
-    private static final String TOP_BY_YEAR = """
-             SELECT f.*, COUNT(l.user_id) as likes_count\s
-             FROM films AS f\s
-             LEFT JOIN likes AS l ON f.film_id = l.film_id
-             WHERE YEAR(f.release_date) = ?
-             GROUP BY f.film_id\s
-             ORDER BY COUNT(l.user_id) DESC\s
-             LIMIT ?
-            \s""";
-    private static final String COMMON_FILMS_QUERY = "SELECT f.*, COUNT(l.user_id) as likes_count " +
+            "WHERE fd.director_id = ? ORDER BY EXTRACT(YEAR FROM f.release_date) ASC, f.film_id";
+    private static final String FILMS_DIRECTORS_QUERY = "SELECT fd.film_id, d.director_id, d.name " +
+            "FROM film_directors AS fd JOIN directors AS d ON fd.director_id = d.director_id " +
+            "WHERE fd.film_id = ANY(?)";
+    private static final String COMMON_FILMS_QUERY = "SELECT f.* " +
             "FROM films f " +
             "JOIN likes l1 ON f.film_id = l1.film_id AND l1.user_id = ? " +
             "JOIN likes l2 ON f.film_id = l2.film_id AND l2.user_id = ? " +
-            "LEFT JOIN likes l ON f.film_id = l.film_id " +
-            "GROUP BY f.film_id " +
-            "ORDER BY likes_count DESC";
-
-    public FilmRepository(JdbcTemplate jdbc, RowMapper<Film> mapper) {
+            "ORDER BY f.like_count DESC, f.film_id";
+
+    private final GenreStorage genreStorage;
+    private final MpaStorage mpaStorage;
+    // виртуальные потоки для параллельного чтения фильма; null - фильм читается последовательно
+    private final ExecutorService hydrationExecutor;
+    private final long hydrationTimeoutMs;
+    // тайм-аут JDBC задаётся в целых секундах, поэтому округляется вверх
+    private final int hydrationTimeoutSeconds;
+
+    public FilmRepository(JdbcTemplate jdbc, RowMapper<Film> mapper, GenreStorage genreStorage,
+                          MpaStorage mpaStorage,
+                          @Value("${filmorate.films.parallel-hydration:false}") boolean parallelHydration,
+                          @Value("${filmorate.films.hydration-timeout-ms:500}") long hydrationTimeoutMs) {
         super(jdbc, mapper);
+        this.genreStorage = genreStorage;
+        this.mpaStorage = mpaStorage;
+        this.hydrationExecutor = parallelHydration ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        this.hydrationTimeoutMs = hydrationTimeoutMs;
+        this.hydrationTimeoutSeconds = (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(hydrationTimeoutMs + 999));
+    }
+
+    @PreDestroy
+    public void close() {
+        if (hydrationExecutor != null) {
+            hydrationExecutor.shutdownNow();
+        }
     }
 
+    // Фильм, его жанры и режиссёры пишутся в одной транзакции: три запроса и одна фиксация
     @Override
+    @Transactional
     public Film add(Film film) {
-        long id = insert(
-                INSERT_QUERY,
-                film.getName(),
-                film.getDescription(),
-                film.getReleaseDate(),
-                film.getDuration()
-        );
+        long id = insert(INSERT_QUERY, insertParams(film));
         film.setId(id);
-        Mpa mpa = film.getMpa();
-        if (mpa != null) {
-            jdbc.update("UPDATE films SET mpa_id = ? WHERE film_id = ?", mpa.getId(), id);
-        }
-        List<Long> genres = film.getGenres().stream()
-                .map(Genre::getId)
-                .toList();
-        addMany(INSERT_GENRES_QUERY, id, genres);
-        List<Long> directors = film.getDirectors().stream()
-                .map(Director::getId)
-                .toList();
-        addMany(INSERT_DIRECTORS_QUERY, id, directors);
+        addMany(INSERT_GENRES_QUERY, id, List.copyOf(genreIds(film)));
+        addMany(INSERT_DIRECTORS_QUERY, id, List.copyOf(directorIds(film)));
 
         return film;
     }
 
+    // Фильмы пишутся одной пакетной вставкой, жанры и режиссёры всех фильмов - ещё двумя
     @Override
+    @Transactional
+    public void addAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        List<Object[]> filmArgs = new ArrayList<>(films.size());
+        for (Film film : films) {
+            filmArgs.add(insertParams(film));
+        }
+        long[] ids = insertMany(INSERT_QUERY, filmArgs);
+
+        List<Object[]> genreArgs = new ArrayList<>();
+        List<Object[]> directorArgs = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) {
+            Film film = films.get(i);
+            film.setId(ids[i]);
+            for (Genre genre : film.getGenres()) {
+                genreArgs.add(new Object[]{ids[i], genre.getId()});
+            }
+            for (Director director : film.getDirectors()) {
+                directorArgs.add(new Object[]{ids[i], director.getId()});
+            }
+        }
+        if (!genreArgs.isEmpty()) {
+            jdbc.batchUpdate(INSERT_GENRES_QUERY, genreArgs);
+        }
+        if (!directorArgs.isEmpty()) {
+            jdbc.batchUpdate(INSERT_DIRECTORS_QUERY, directorArgs);
+        }
+    }
+
+    // Связи с жанрами и режиссёрами сравниваются с сохранёнными, и пишутся только изменения:
+    // обновление без смены жанров и режиссёров - это UPDATE и одно чтение связей в одной транзакции
+    @Override
+    @Transactional
     public void update(Film film) {
         long id = film.getId();
         update(
@@ -151,11 +177,38 @@ public class FilmRepository extends BaseRepository<Film> implements FilmStorage
                 id
         );
 
-        delete(REMOVE_GENRES_QUERY, id);
-        addMany(INSERT_GENRES_QUERY, id, film.getGenres().stream().map(Genre::getId).toList());
+        Set<Long> storedGenres = new HashSet<>();
+        Set<Long> storedDirectors = new HashSet<>();
+        jdbc.query(FILM_LINKS_QUERY, rs -> {
+            Set<Long> links = "genre".equals(rs.getString("link")) ? storedGenres : storedDirectors;
+            links.add(rs.getLong("link_id"));
+        }, id, id);
+        updateLinks(id, storedGenres, genreIds(film), INSERT_GENRES_QUERY, REMOVE_GENRE_QUERY);
+        updateLinks(id, storedDirectors, directorIds(film), INSERT_DIRECTORS_QUERY, REMOVE_DIRECTOR_QUERY);
+    }
+
+    private void updateLinks(long filmId, Set<Long> stored, Set<Long> wanted, String insertQuery,
+                             String removeQuery) {
+        List<Long> removed = stored.stream().filter(linkId -> !wanted.contains(linkId)).toList();
+        List<Long> added = wanted.stream().filter(linkId -> !stored.contains(linkId)).toList();
+        removeMany(removeQuery, filmId, removed);
+        addMany(insertQuery, filmId, added);
+    }
+
+    private static Set<Long> genreIds(Film film) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Genre genre : film.getGenres()) {
+            ids.add(genre.getId());
+        }
+        return ids;
+    }
 
-        delete(REMOVE_DIRECTORS_QUERY, id);
-        addMany(INSERT_DIRECTORS_QUERY, id, film.getDirectors().stream().map(Director::getId).toList());
+    private static Set<Long> directorIds(Film film) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Director director : film.getDirectors()) {
+            ids.add(director.getId());
+        }
+        return ids;
     }
 
     @Override
@@ -165,181 +218,269 @@ public class FilmRepository extends BaseRepository<Film> implements FilmStorage
 
     @Override
     public Film get(long id) {
+        // в транзакции параллельные запросы шли бы через другие соединения и не видели бы её изменений
+        if (hydrationExecutor != null && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            Film film = getInParallel(id);
+            if (film != null) {
+                return film;
+            }
+        }
         Optional<Film> optionalFilm = findOne(FIND_BY_ID_QUERY, id);
         if (optionalFilm.isEmpty()) {
             log.warn("Фильм не найден");
             throw new NotFoundException("Фильм " + id + " не найден");
         }
         Film film = optionalFilm.get();
-        setParameters(film);
+        setParameters(List.of(film));
 
         return film;
     }
 
-    @Override
-    public List<Film> getAll() {
-        List<Film> films = findMany(FIND_ALL_QUERY);
-        for (Film film : films) {
-            setParameters(film);
+    // Строка фильма, лайки, жанры и режиссёры читаются одновременно через отдельные соединения пула,
+    // и время ответа - самый долгий из четырёх запросов, а не их сумма. Отмена future не прерывает запрос
+    // JDBC, поэтому запросы ограничены тайм-аутом выражения: не уложившись в hydration-timeout-ms, метод
+    // дожидается их завершения или отмены драйвером - после выхода ни один запрос не держит соединение
+    // и разрешение шлюза. null - запросы не уложились или не запустились, и фильм читается последовательно
+    private Film getInParallel(long id) {
+        Object[] ids = new Object[]{new Long[]{id}};
+        List<CompletableFuture<?>> loads = new ArrayList<>(4);
+        CompletableFuture<List<Film>> row;
+        CompletableFuture<List<Long>> likes;
+        CompletableFuture<List<Genre>> genres;
+        CompletableFuture<List<Director>> directors;
+        try {
+            row = async(loads, () -> queryWithTimeout(FIND_BY_ID_QUERY, hydrationTimeoutSeconds, mapper, id));
+            likes = async(loads, () -> queryWithTimeout(FILMS_LIKES_QUERY, hydrationTimeoutSeconds,
+                    (rs, rowNum) -> rs.getLong("user_id"), ids));
+            genres = async(loads, () -> queryWithTimeout(FILMS_GENRES_QUERY, hydrationTimeoutSeconds,
+                    (rs, rowNum) -> genreStorage.get(rs.getLong("genre_id")), ids));
+            directors = async(loads, () -> queryWithTimeout(FILMS_DIRECTORS_QUERY, hydrationTimeoutSeconds,
+                    new DirectorRowMapper(), ids));
+        } catch (RejectedExecutionException e) {
+            drain(loads);
+            return null;
         }
-        return films;
+        try {
+            allOf(loads).get(hydrationTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Фильм {} не прочитан параллельно за {} мс, чтение последовательно", id, hydrationTimeoutMs);
+            drain(loads);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            drain(loads);
+            return null;
+        } catch (ExecutionException e) {
+            // allOf завершается только после всех запросов, поэтому ни один из них уже не выполняется
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new InternalServerException("Не удалось прочитать фильм " + id);
+        }
+
+        Film film = row.join().stream().findFirst().orElseThrow(() -> {
+            log.warn("Фильм не найден");
+            return new NotFoundException("Фильм " + id + " не найден");
+        });
+        if (film.getMpa() != null) {
+            film.setMpa(mpaStorage.get(film.getMpa().getId()));
+        }
+        likes.join().forEach(film::like);
+        genres.join().forEach(film::addGenre);
+        directors.join().forEach(film::addDirector);
+        return film;
     }
 
-    @Override
-    public boolean exists(long id) {
-        long count = jdbc.queryForObject(IS_EXIST_QUERY, Long.class, id);
-        return count > 0;
+    // Ждёт завершения запущенных запросов, не прерываясь: их время ограничено тайм-аутом выражения
+    private static void drain(List<CompletableFuture<?>> loads) {
+        allOf(loads).handle((ignored, error) -> null).join();
     }
 
-    @Override
-    public void like(long filmId, long userId) {
-        jdbc.update(INSERT_LIKES_QUERY, filmId, userId);
+    private static CompletableFuture<Void> allOf(List<CompletableFuture<?>> loads) {
+        return CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private <T> CompletableFuture<T> async(List<CompletableFuture<?>> loads, Supplier<T> load) {
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(load, hydrationExecutor);
+        loads.add(future);
+        return future;
     }
 
     @Override
-    public void removeLike(long filmId, long userId) {
-        jdbc.update(DISLIKE_QUERY, filmId, userId);
+    public List<Film> getAll() {
+        return setParameters(findMany(FIND_ALL_QUERY));
     }
 
     @Override
-    public List<Film> getTopFilms(long size) {
-        List<Film> top = findMany(TOP_QUERY, size);
-        for (Film film : top) {
-            setParameters(film);
-        }
-        return top;
+    public List<Film> getPage(long afterId, int limit) {
+        return setParameters(findMany(FIND_PAGE_QUERY, afterId, limit));
     }
 
     @Override
-    public List<Film> getTopFilmsByGenreAndYear(long limit, long genreId, int year) {
-        List<Film> films = findMany(TOP_BY_GENRE_AND_YEAR, genreId, year, limit);
-        for (Film film : films) {
-            setParameters(film);
+    public List<Film> getByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
         }
-        return films;
+        Map<Long, Film> filmsById = new HashMap<>();
+        for (Film film : findMany(FIND_BY_IDS_QUERY, new Object[]{ids.toArray(new Long[0])})) {
+            filmsById.put(film.getId(), film);
+        }
+        List<Film> films = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Film film = filmsById.get(id);
+            if (film != null) {
+                films.add(film);
+            }
+        }
+        return setParameters(films);
     }
 
     @Override
-    public List<Film> getTopFilmsByGenre(long limit, long genreId) {
-        List<Film> films = findMany(TOP_BY_GENRE, genreId, limit);
-        for (Film film : films) {
-            setParameters(film);
-        }
-        return films;
+    public boolean exists(long id) {
+        long count = jdbc.queryForObject(IS_EXIST_QUERY, Long.class, id);
+        return count > 0;
     }
 
     @Override
-    public List<Film> getTopFilmsByYear(long limit, int year) {
-        List<Film> films = findMany(TOP_BY_YEAR, year, limit);
-        for (Film film : films) {
-            setParameters(film);
+    public Set<Long> getExistingIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
         }
-        return films;
+        return new HashSet<>(jdbc.queryForList(EXISTING_IDS_QUERY, Long.class,
+                (Object) ids.toArray(new Long[0])));
     }
 
     @Override
-    public List<Film> getDirectorFilms(long directorId, String sortBy) {
-        String order;
-        if (sortBy.equals("likes")) {
-            order = "COUNT(l.user_id) DESC";
-        } else {
-            order = "EXTRACT(YEAR FROM f.release_date) ASC";
+    @Transactional
+    public boolean like(long filmId, long userId) {
+        boolean inserted = jdbc.update(INSERT_LIKES_QUERY, filmId, userId) > 0;
+        if (inserted) {
+            jdbc.update(INCREMENT_LIKE_COUNT_QUERY, filmId);
         }
+        return inserted;
+    }
 
-        String query = DIRECTOR_FILMS_QUERY + order;
-
-        List<Film> directorFilms = findMany(query, directorId);
-        for (Film film : directorFilms) {
-            setParameters(film);
+    @Override
+    @Transactional
+    public boolean removeLike(long filmId, long userId) {
+        boolean deleted = jdbc.update(DISLIKE_QUERY, filmId, userId) > 0;
+        if (deleted) {
+            jdbc.update(DECREMENT_LIKE_COUNT_QUERY, filmId);
         }
-        return directorFilms;
+        return deleted;
     }
 
+    // Пакетная постановка и снятие лайков; возвращает по каждой операции, изменила ли она таблицу likes.
+    // Счётчики like_count меняются одним обновлением на фильм по фактически изменённым строкам
     @Override
-    public List<Film> getRecommendationFilms(List<Long> usersIdWithSimilarLikes, Long userId) {
-        Set<Film> recommendationFilms = new LinkedHashSet<>();
-        for (Long userIdWithSimilarLikes : usersIdWithSimilarLikes) {
-            List<Film> films = findMany(FIND_RECOMMENDATION_FILMS, userIdWithSimilarLikes, userId);
-            for (Film film : films) {
-                setParameters(film);
-                recommendationFilms.add(film);
-                if (recommendationFilms.size() > 4) {
-                    return recommendationFilms.stream().toList();
-                }
+    @Transactional
+    public boolean[] setLikes(List<LikeChange> changes) {
+        List<Object[]> addArgs = new ArrayList<>();
+        List<Object[]> removeArgs = new ArrayList<>();
+        for (LikeChange change : changes) {
+            Object[] args = {change.filmId(), change.userId()};
+            if (change.operation() == Operation.ADD) {
+                addArgs.add(args);
+            } else {
+                removeArgs.add(args);
+            }
+        }
+        int[] added = addArgs.isEmpty() ? new int[0] : jdbc.batchUpdate(INSERT_LIKES_QUERY, addArgs);
+        int[] removed = removeArgs.isEmpty() ? new int[0] : jdbc.batchUpdate(DISLIKE_QUERY, removeArgs);
+
+        boolean[] changed = new boolean[changes.size()];
+        Map<Long, Integer> deltas = new HashMap<>();
+        int addIdx = 0;
+        int removeIdx = 0;
+        for (int i = 0; i < changes.size(); i++) {
+            LikeChange change = changes.get(i);
+            boolean add = change.operation() == Operation.ADD;
+            changed[i] = add ? added[addIdx++] > 0 : removed[removeIdx++] > 0;
+            if (changed[i]) {
+                deltas.merge(change.filmId(), add ? 1 : -1, Integer::sum);
+            }
+        }
+        List<Object[]> countArgs = new ArrayList<>();
+        deltas.forEach((filmId, delta) -> {
+            if (delta != 0) {
+                countArgs.add(new Object[]{delta, filmId});
             }
+        });
+        if (!countArgs.isEmpty()) {
+            jdbc.batchUpdate(ADD_LIKE_COUNT_QUERY, countArgs);
         }
-        return recommendationFilms.stream().toList();
+        return changed;
     }
 
     @Override
-    public List<Film> getFilmsSearchByTitle(String query) {
-        List<Film> filmsSearchByTitle = findMany(FILMS_SEARCH_BY_TITLE, query);
-        for (Film film : filmsSearchByTitle) {
-            setParameters(film);
-        }
-        return filmsSearchByTitle;
+    @Transactional
+    public int repairLikeCounts() {
+        return jdbc.update(REPAIR_LIKE_COUNT_QUERY);
     }
 
     @Override
-    public List<Film> getFilmsSearchByDirector(String query) {
-        List<Film> filmsSearchByDirector = findMany(FILMS_SEARCH_BY_DIRECTOR, query);
-        for (Film film : filmsSearchByDirector) {
-            setParameters(film);
-        }
-        return filmsSearchByDirector;
+    public List<Long> getLikedFilmIds(long userId) {
+        return jdbc.queryForList(USER_LIKED_FILMS_QUERY, Long.class, userId);
     }
 
     @Override
-    public List<Film> getFilmsSearchByDirectorOrTitle(String query) {
-        List<Film> filmsSearchByDirectorOrTitle = findMany(FILMS_SEARCH_BY_DIRECTOR_OR_TITLE, query, query);
-        for (Film film : filmsSearchByDirectorOrTitle) {
-            setParameters(film);
+    public List<Film> getDirectorFilms(long directorId, String sortBy) {
+        String query;
+        if (sortBy.equals("likes")) {
+            query = DIRECTOR_FILMS_BY_LIKES_QUERY;
+        } else {
+            query = DIRECTOR_FILMS_BY_YEAR_QUERY;
         }
-        return filmsSearchByDirectorOrTitle;
+
+        return setParameters(findMany(query, directorId));
     }
 
     @Override
     public List<Film> getCommonFilms(long userId, long friendId) {
-        List<Film> commonFilms = findMany(COMMON_FILMS_QUERY, userId, friendId);
-        for (Film film : commonFilms) {
-            setParameters(film);
-        }
-        return commonFilms;
+        return setParameters(findMany(COMMON_FILMS_QUERY, userId, friendId));
     }
 
-    private List<Genre> getFilmGenres(long id) {
-        GenreRowMapper genreMapper = new GenreRowMapper();
-        return jdbc.query(FILM_GENRES_QUERY, genreMapper, id);
-    }
+    // Догружает лайки, жанры, рейтинг и режиссеров сразу для всех фильмов списка:
+    // по одному запросу на каждую связь независимо от размера списка.
+    // Жанры и рейтинги берутся из справочников в памяти, из базы читаются только их id
+    private List<Film> setParameters(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        Map<Long, Film> filmsById = new HashMap<>();
+        for (Film film : films) {
+            filmsById.put(film.getId(), film);
+            Mpa mpa = film.getMpa();
+            if (mpa != null) {
+                film.setMpa(mpaStorage.get(mpa.getId()));
+            }
+        }
+        Object[] ids = new Object[]{filmsById.keySet().toArray(new Long[0])};
 
-    private Mpa getMpa(long id) {
-        MpaRowMapper mpaMapper = new MpaRowMapper();
-        return jdbc.queryForObject(MPA_QUERY, mpaMapper, id);
-    }
+        jdbc.query(FILMS_LIKES_QUERY, rs -> {
+            filmsById.get(rs.getLong("film_id")).like(rs.getLong("user_id"));
+        }, ids);
 
-    private List<Director> getFilmDirectors(long id) {
-        DirectorRowMapper directorMapper = new DirectorRowMapper();
-        return jdbc.query(FILM_DIRECTORS_QUERY, directorMapper, id);
-    }
+        jdbc.query(FILMS_GENRES_QUERY, rs -> {
+            filmsById.get(rs.getLong("film_id")).addGenre(genreStorage.get(rs.getLong("genre_id")));
+        }, ids);
 
-    private void setParameters(Film film) {
-        long id = film.getId();
-        List<Long> likes = jdbc.queryForList(GET_LIKES_QUERY, Long.class, id);
-        for (Long userId : likes) {
-            film.like(userId);
-        }
-
-        List<Genre> genres = getFilmGenres(id);
-        for (Genre genre : genres) {
-            film.addGenre(genre);
-        }
+        DirectorRowMapper directorMapper = new DirectorRowMapper();
+        jdbc.query(FILMS_DIRECTORS_QUERY, rs -> {
+            filmsById.get(rs.getLong("film_id")).addDirector(directorMapper.mapRow(rs, 0));
+        }, ids);
 
-        Mpa rating = getMpa(id);
-        film.setMpa(rating);
+        return films;
+    }
 
-        List<Director> directors = getFilmDirectors(id);
-        for (Director director : directors) {
-            film.addDirector(director);
-        }
+    private static Object[] insertParams(Film film) {
+        Mpa mpa = film.getMpa();
+        return new Object[]{
+                film.getName(),
+                film.getDescription(),
+                film.getReleaseDate(),
+                film.getDuration(),
+                mpa == null ? null : mpa.getId()
+        };
     }
 }
@@ -0,0 +1,234 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Триграммный инвертированный индекс по названиям фильмов и именам режиссеров.
+// Кандидаты выбираются пересечением списков триграмм запроса и затем проверяются
+// на вхождение подстроки, поэтому результат совпадает с LOWER(name) LIKE '%query%'
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmSearchIndex {
+    private static final String LOAD_FILMS_QUERY = "SELECT film_id, name FROM films";
+    private static final String LOAD_DIRECTORS_QUERY = "SELECT director_id, name FROM directors";
+    private static final String LOAD_FILM_DIRECTORS_QUERY = "SELECT film_id, director_id FROM film_directors";
+    private static final int GRAM = 3;
+
+    private final JdbcTemplate jdbc;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NameIndex titles = new NameIndex();
+    private final NameIndex directors = new NameIndex();
+    private final Map<Long, Set<Long>> filmDirectors = new HashMap<>();
+    private final Map<Long, Set<Long>> directorFilms = new HashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            titles.clear();
+            directors.clear();
+            filmDirectors.clear();
+            directorFilms.clear();
+            jdbc.query(LOAD_FILMS_QUERY, rs -> {
+                titles.put(rs.getLong("film_id"), rs.getString("name"));
+            });
+            jdbc.query(LOAD_DIRECTORS_QUERY, rs -> {
+                directors.put(rs.getLong("director_id"), rs.getString("name"));
+            });
+            jdbc.query(LOAD_FILM_DIRECTORS_QUERY, rs -> {
+                link(rs.getLong("film_id"), rs.getLong("director_id"));
+            });
+            log.info("Поисковый индекс загружен: {} фильмов, {} режиссеров", titles.size(), directors.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putFilm(Film film) {
+        lock.writeLock().lock();
+        try {
+            long filmId = film.getId();
+            titles.put(filmId, film.getName());
+            unlinkFilm(filmId);
+            for (Director director : film.getDirectors()) {
+                link(filmId, director.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFilm(long filmId) {
+        lock.writeLock().lock();
+        try {
+            titles.remove(filmId);
+            unlinkFilm(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putDirector(Director director) {
+        lock.writeLock().lock();
+        try {
+            directors.put(director.getId(), director.getName());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeDirector(long directorId) {
+        lock.writeLock().lock();
+        try {
+            directors.remove(directorId);
+            Set<Long> films = directorFilms.remove(directorId);
+            if (films != null) {
+                for (Long filmId : films) {
+                    removeFrom(filmDirectors, filmId, directorId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Set<Long> search(String query, boolean byTitle, boolean byDirector) {
+        String needle = normalize(query);
+        lock.readLock().lock();
+        try {
+            Set<Long> found = new HashSet<>();
+            if (byTitle) {
+                found.addAll(titles.find(needle));
+            }
+            if (byDirector) {
+                for (Long directorId : directors.find(needle)) {
+                    found.addAll(directorFilms.getOrDefault(directorId, Collections.emptySet()));
+                }
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void link(long filmId, long directorId) {
+        filmDirectors.computeIfAbsent(filmId, id -> new HashSet<>()).add(directorId);
+        directorFilms.computeIfAbsent(directorId, id -> new HashSet<>()).add(filmId);
+    }
+
+    private void unlinkFilm(long filmId) {
+        Set<Long> linked = filmDirectors.remove(filmId);
+        if (linked != null) {
+            for (Long directorId : linked) {
+                removeFrom(directorFilms, directorId, filmId);
+            }
+        }
+    }
+
+    private static void removeFrom(Map<Long, Set<Long>> map, long key, long value) {
+        Set<Long> values = map.get(key);
+        if (values != null) {
+            values.remove(value);
+            if (values.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static class NameIndex {
+        private final Map<Long, String> names = new HashMap<>();
+        private final Map<String, Set<Long>> postings = new HashMap<>();
+
+        void put(long id, String name) {
+            remove(id);
+            String normalized = normalize(name);
+            names.put(id, normalized);
+            for (String gram : trigrams(normalized)) {
+                postings.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+            }
+        }
+
+        void remove(long id) {
+            String old = names.remove(id);
+            if (old == null) {
+                return;
+            }
+            for (String gram : trigrams(old)) {
+                Set<Long> ids = postings.get(gram);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+
+        List<Long> find(String needle) {
+            Collection<Long> candidates;
+            if (needle.length() < GRAM) {
+                // короткий запрос не образует триграмм - проверяем все названия
+                candidates = names.keySet();
+            } else {
+                candidates = intersect(trigrams(needle));
+            }
+
+            List<Long> found = new ArrayList<>();
+            for (Long id : candidates) {
+                if (names.get(id).contains(needle)) {
+                    found.add(id);
+                }
+            }
+            return found;
+        }
+
+        private Collection<Long> intersect(Set<String> grams) {
+            List<Set<Long>> lists = new ArrayList<>(grams.size());
+            for (String gram : grams) {
+                Set<Long> ids = postings.get(gram);
+                if (ids == null) {
+                    return Collections.emptyList();
+                }
+                lists.add(ids);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+
+            Set<Long> result = new HashSet<>(lists.getFirst());
+            for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+                result.retainAll(lists.get(i));
+            }
+            return result;
+        }
+
+        int size() {
+            return names.size();
+        }
+
+        void clear() {
+            names.clear();
+            postings.clear();
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package ru.yandex.practicum.filmorate.repository.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeChange;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface FilmStorage {
 
     Film add(Film film);
 
+    void addAll(List<Film> films);
+
     void update(Film film);
 
     void delete(long id);
@@ -16,29 +21,25 @@ public interface FilmStorage {
 
     List<Film> getAll();
 
-    boolean exists(long id);
-
-    void like(long filmId, long userId);
-
-    void removeLike(long filmId, long userId);
+    List<Film> getByIds(List<Long> ids);
 
-    List<Film> getTopFilmsByGenreAndYear(long limit, long genreId, int year);
+    List<Film> getPage(long afterId, int limit);
 
-    List<Film> getTopFilmsByGenre(long limit, long genreId);
+    boolean exists(long id);
 
-    List<Film> getTopFilmsByYear(long limit, int year);
+    Set<Long> getExistingIds(Collection<Long> ids);
 
-    List<Film> getTopFilms(long size);
+    boolean like(long filmId, long userId);
 
-    List<Film> getDirectorFilms(long directorId, String sortBy);
+    boolean removeLike(long filmId, long userId);
 
-    List<Film> getRecommendationFilms(List<Long> usersIdWithSimilarLikes, Long userId);
+    boolean[] setLikes(List<LikeChange> changes);
 
-    List<Film> getFilmsSearchByTitle(String query);
+    List<Long> getLikedFilmIds(long userId);
 
-    List<Film> getFilmsSearchByDirector(String query);
+    int repairLikeCounts();
 
-    List<Film> getFilmsSearchByDirectorOrTitle(String query);
+    List<Film> getDirectorFilms(long directorId, String sortBy);
 
     List<Film> getCommonFilms(long userId, long friendId);
 }
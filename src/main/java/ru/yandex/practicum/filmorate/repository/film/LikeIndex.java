@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// Таблица likes в памяти в обе стороны: пользователь -> фильмы и фильм -> пользователи.
+// Идентификаторы хранятся в отсортированных массивах long
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LikeIndex {
+    private static final String LOAD_QUERY = "SELECT film_id, user_id FROM likes";
+
+    private final JdbcTemplate jdbc;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, SortedLongSet> userFilms = new HashMap<>();
+    private final Map<Long, SortedLongSet> filmUsers = new HashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            userFilms.clear();
+            filmUsers.clear();
+            int[] count = new int[1];
+            jdbc.query(LOAD_QUERY, rs -> {
+                link(rs.getLong("film_id"), rs.getLong("user_id"));
+                count[0]++;
+            });
+            log.info("Индекс лайков загружен: {} лайков", count[0]);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void like(long filmId, long userId) {
+        lock.writeLock().lock();
+        try {
+            link(filmId, userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeLike(long filmId, long userId) {
+        lock.writeLock().lock();
+        try {
+            unlink(userFilms, userId, filmId);
+            unlink(filmUsers, filmId, userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFilm(long filmId) {
+        lock.writeLock().lock();
+        try {
+            SortedLongSet users = filmUsers.remove(filmId);
+            if (users != null) {
+                users.forEach(userId -> unlink(userFilms, userId, filmId));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeUser(long userId) {
+        lock.writeLock().lock();
+        try {
+            SortedLongSet films = userFilms.remove(userId);
+            if (films != null) {
+                films.forEach(filmId -> unlink(filmUsers, filmId, userId));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SortedLongSet getUserFilms(long userId) {
+        return copyOf(userFilms, userId);
+    }
+
+    public SortedLongSet getFilmUsers(long filmId) {
+        return copyOf(filmUsers, filmId);
+    }
+
+    // Выполняет чтение нескольких списков под одной блокировкой, без копирования массивов.
+    // Переданный код не должен сохранять ссылки на множества после возврата
+    public void read(Consumer<View> reader) {
+        lock.readLock().lock();
+        try {
+            reader.accept(new View());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private SortedLongSet copyOf(Map<Long, SortedLongSet> map, long key) {
+        lock.readLock().lock();
+        try {
+            SortedLongSet set = map.get(key);
+            return set == null ? new SortedLongSet() : set.copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void link(long filmId, long userId) {
+        userFilms.computeIfAbsent(userId, id -> new SortedLongSet()).add(filmId);
+        filmUsers.computeIfAbsent(filmId, id -> new SortedLongSet()).add(userId);
+    }
+
+    private static void unlink(Map<Long, SortedLongSet> map, long key, long value) {
+        SortedLongSet set = map.get(key);
+        if (set != null && set.remove(value) && set.isEmpty()) {
+            map.remove(key);
+        }
+    }
+
+    public class View {
+        private final SortedLongSet empty = new SortedLongSet();
+
+        public SortedLongSet userFilms(long userId) {
+            return userFilms.getOrDefault(userId, empty);
+        }
+
+        public SortedLongSet filmUsers(long filmId) {
+            return filmUsers.getOrDefault(filmId, empty);
+        }
+    }
+}
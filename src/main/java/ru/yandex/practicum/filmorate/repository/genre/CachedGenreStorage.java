@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.repository.genre;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.util.IdIndex;
+
+import java.util.Collection;
+import java.util.List;
+
+// Справочник жанров неизменяем (заполняется миграцией V2__reference_data), поэтому читается из базы один раз
+// при запуске и дальше обслуживается из массива, индексированного по id
+@Slf4j
+@Primary
+@Repository
+@RequiredArgsConstructor
+public class CachedGenreStorage implements GenreStorage {
+    private final GenreRepository genreRepository;
+    private IdIndex<Genre> index = IdIndex.empty();
+
+    @PostConstruct
+    public void load() {
+        index = IdIndex.of(genreRepository.getAll(), Genre::getId);
+        log.info("Справочник жанров загружен: {}", index.size());
+    }
+
+    @Override
+    public Genre get(long id) {
+        Genre genre = index.find(id);
+        if (genre == null) {
+            log.warn("При запросе жанра возникла ошибка: Жанр не найден");
+            throw new NotFoundException("Жанр " + id + " не найден");
+        }
+        return genre;
+    }
+
+    @Override
+    public List<Genre> getAll() {
+        return index.getAll();
+    }
+
+    @Override
+    public boolean exists(long id) {
+        return index.find(id) != null;
+    }
+
+    @Override
+    public void validate(Collection<Long> ids) {
+        for (Long id : ids) {
+            get(id);
+        }
+    }
+}
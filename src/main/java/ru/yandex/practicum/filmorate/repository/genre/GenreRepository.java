@@ -9,14 +9,14 @@ import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.repository.BaseRepository;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 @Slf4j
 @Repository
 public class GenreRepository extends BaseRepository<Genre> implements GenreStorage {
     private static final String FIND_BY_ID_QUERY = "SELECT * FROM genres WHERE genre_id = ?";
     private static final String FIND_ALL_QUERY = "SELECT * FROM genres ORDER BY genre_id";
+    private static final String FIND_EXISTING_IDS_QUERY = "SELECT genre_id FROM genres WHERE genre_id = ANY(?)";
 
     public GenreRepository(JdbcTemplate jdbc, RowMapper<Genre> mapper) {
         super(jdbc, mapper);
@@ -37,6 +37,25 @@ public class GenreRepository extends BaseRepository<Genre> implements GenreStora
         return findMany(FIND_ALL_QUERY);
     }
 
+    @Override
+    public boolean exists(long id) {
+        return findOne(FIND_BY_ID_QUERY, id).isPresent();
+    }
+
+    @Override
+    public void validate(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Set<Long> missing = new TreeSet<>(ids);
+        missing.removeAll(jdbc.queryForList(FIND_EXISTING_IDS_QUERY, Long.class,
+                new Object[]{ids.toArray(new Long[0])}));
+        if (!missing.isEmpty()) {
+            log.warn("При запросе жанра возникла ошибка: Жанр не найден");
+            throw new NotFoundException("Жанр " + missing.iterator().next() + " не найден");
+        }
+    }
+
     @Override
     protected boolean delete(String query, long id) {
         throw new InternalServerException("Операция недоступна");
@@ -2,10 +2,15 @@ package ru.yandex.practicum.filmorate.repository.genre;
 
 import ru.yandex.practicum.filmorate.model.Genre;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface GenreStorage {
     Genre get(long id);
 
     List<Genre> getAll();
+
+    boolean exists(long id);
+
+    void validate(Collection<Long> ids);
 }
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.repository.mappers;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -22,6 +23,14 @@ public class FilmRowMapper implements RowMapper<Film> {
 
         film.setDuration(rs.getLong("duration"));
 
+        // Название рейтинга подставляется из справочника при догрузке связей фильма
+        long mpaId = rs.getLong("mpa_id");
+        if (!rs.wasNull()) {
+            Mpa mpa = new Mpa();
+            mpa.setId(mpaId);
+            film.setMpa(mpa);
+        }
+
         return film;
     }
 }
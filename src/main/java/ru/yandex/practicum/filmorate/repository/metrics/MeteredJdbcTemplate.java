@@ -0,0 +1,203 @@
+package ru.yandex.practicum.filmorate.repository.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.core.*;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.repository.metrics.QueryCatalog.QueryName;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// JdbcTemplate, который замеряет каждый выполненный запрос: время (filmorate.jdbc.statements)
+// и число прочитанных или изменённых строк (filmorate.jdbc.rows) с тегами хранилища и имени запроса,
+// и считает запросы и фиксации записи потока в QueryCounter.
+// Переопределены методы, через которые JdbcTemplate проводит все запросы, поэтому замеряются
+// и методы BaseRepository, и прямые вызовы jdbc в хранилищах
+@Component
+public class MeteredJdbcTemplate extends JdbcTemplate {
+    private static final String STATEMENTS_METRIC = "filmorate.jdbc.statements";
+    private static final String ROWS_METRIC = "filmorate.jdbc.rows";
+    // явные границы гистограмм: стандартная гистограмма Micrometer даёт ~70 бакетов на каждый из десятков запросов
+    public static final Duration[] LATENCY_BUCKETS = {Duration.ofNanos(100_000), Duration.ofNanos(250_000),
+            Duration.ofNanos(500_000), Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofMillis(10),
+            Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(500), Duration.ofSeconds(1)};
+    private static final double[] ROW_BUCKETS = {1, 10, 100, 1_000, 10_000};
+
+    private final QueryCatalog catalog;
+    private final QueryCounter counter;
+    private final MeterRegistry registry;
+    private final Map<QueryName, StatementMeters> meters = new ConcurrentHashMap<>();
+
+    public MeteredJdbcTemplate(DataSource dataSource, QueryCatalog catalog, QueryCounter counter,
+                               MeterRegistry registry) {
+        super(dataSource);
+        this.catalog = catalog;
+        this.counter = counter;
+        this.registry = registry;
+    }
+
+    @Override
+    public <T> T query(PreparedStatementCreator psc, PreparedStatementSetter pss, ResultSetExtractor<T> rse) {
+        return measure(sqlOf(psc), () -> super.query(psc, pss, rse));
+    }
+
+    @Override
+    public <T> T query(String sql, ResultSetExtractor<T> rse) {
+        return measure(sql, () -> super.query(sql, rse));
+    }
+
+    // RowCallbackHandler ничего не возвращает, поэтому строки считаются по вызовам обработчика
+    @Override
+    public void query(String sql, RowCallbackHandler rch) {
+        long[] rows = new long[1];
+        super.query(sql, counting(rch, rows));
+        meters(sql).rows.record(rows[0]);
+    }
+
+    @Override
+    public void query(String sql, RowCallbackHandler rch, Object... args) {
+        long[] rows = new long[1];
+        super.query(sql, counting(rch, rows), args);
+        meters(sql).rows.record(rows[0]);
+    }
+
+    @Override
+    protected int update(PreparedStatementCreator psc, PreparedStatementSetter pss) {
+        return measureWrite(sqlOf(psc), () -> super.update(psc, pss));
+    }
+
+    @Override
+    public int update(String sql) {
+        return measureWrite(sql, () -> super.update(sql));
+    }
+
+    @Override
+    public int update(PreparedStatementCreator psc, KeyHolder generatedKeyHolder) {
+        return measureWrite(sqlOf(psc), () -> super.update(psc, generatedKeyHolder));
+    }
+
+    @Override
+    public int[] batchUpdate(String sql, BatchPreparedStatementSetter pss) {
+        return measureWrite(sql, () -> super.batchUpdate(sql, pss));
+    }
+
+    @Override
+    public int[] batchUpdate(PreparedStatementCreator psc, BatchPreparedStatementSetter pss,
+                             KeyHolder generatedKeyHolder) {
+        return measureWrite(sqlOf(psc), () -> super.batchUpdate(psc, pss, generatedKeyHolder));
+    }
+
+    private <T> T measureWrite(String sql, Supplier<T> statement) {
+        T result = measure(sql, statement);
+        countCommit();
+        return result;
+    }
+
+    // Запись вне транзакции фиксируется сама (autocommit). В транзакции фиксация одна на всю транзакцию:
+    // она засчитывается после успешного завершения, отметка в ресурсах транзакции не даёт посчитать её дважды
+    private void countCommit() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            counter.commit();
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(counter)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(counter, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(counter);
+                if (status == STATUS_COMMITTED) {
+                    counter.commit();
+                }
+            }
+        });
+    }
+
+    private <T> T measure(String sql, Supplier<T> statement) {
+        counter.increment();
+        StatementMeters statementMeters = meters(sql);
+        long start = System.nanoTime();
+        try {
+            T result = statement.get();
+            statementMeters.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            long rows = rows(result);
+            if (rows >= 0) {
+                statementMeters.rows.record(rows);
+            }
+            return result;
+        } catch (RuntimeException e) {
+            timer(statementMeters.name, e.getClass().getSimpleName())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private StatementMeters meters(String sql) {
+        QueryName name = catalog.resolve(sql);
+        StatementMeters statementMeters = meters.get(name);
+        if (statementMeters == null) {
+            statementMeters = meters.computeIfAbsent(name, key -> new StatementMeters(key, timer(key, "none"),
+                    DistributionSummary.builder(ROWS_METRIC)
+                            .description("Строки, прочитанные или изменённые SQL-запросом")
+                            .tag("repository", key.repository())
+                            .tag("query", key.query())
+                            .serviceLevelObjectives(ROW_BUCKETS)
+                            .register(registry)));
+        }
+        return statementMeters;
+    }
+
+    private Timer timer(QueryName name, String exception) {
+        return Timer.builder(STATEMENTS_METRIC)
+                .description("Время выполнения SQL-запроса")
+                .tag("repository", name.repository())
+                .tag("query", name.query())
+                .tag("exception", exception)
+                .serviceLevelObjectives(LATENCY_BUCKETS)
+                .register(registry);
+    }
+
+    private static String sqlOf(PreparedStatementCreator psc) {
+        return psc instanceof SqlProvider provider ? provider.getSql() : null;
+    }
+
+    private static RowCallbackHandler counting(RowCallbackHandler rch, long[] rows) {
+        return rs -> {
+            rows[0]++;
+            rch.processRow(rs);
+        };
+    }
+
+    private static long rows(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Integer updated) {
+            return Math.max(updated, 0);
+        }
+        if (result instanceof int[] batch) {
+            long sum = 0;
+            for (int updated : batch) {
+                sum += Math.max(updated, 0);
+            }
+            return sum;
+        }
+        return -1;
+    }
+
+    private record StatementMeters(QueryName name, Timer success, DistributionSummary rows) {
+    }
+}
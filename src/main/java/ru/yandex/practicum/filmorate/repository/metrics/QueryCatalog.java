@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.repository.metrics;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import ru.yandex.practicum.filmorate.repository.BaseRepository;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Соответствие текста SQL логическому имени запроса: константы *_QUERY хранилищ регистрируются
+// до их @PostConstruct, поэтому запросы загрузки индексов при старте тоже получают имя
+@Component
+public class QueryCatalog implements BeanPostProcessor {
+    public static final QueryName UNKNOWN = new QueryName("unknown", "unknown");
+    private static final String REPOSITORY_PACKAGE = BaseRepository.class.getPackageName();
+
+    private final Map<String, QueryName> names = new ConcurrentHashMap<>();
+
+    public record QueryName(String repository, String query) {
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        Class<?> type = ClassUtils.getUserClass(bean);
+        if (type.getPackageName().startsWith(REPOSITORY_PACKAGE)) {
+            register(type);
+        }
+        return bean;
+    }
+
+    public void register(Class<?> type) {
+        for (Field field : type.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (field.getType() != String.class || !Modifier.isStatic(modifiers) || !Modifier.isFinal(modifiers)) {
+                continue;
+            }
+            try {
+                field.setAccessible(true);
+                String sql = (String) field.get(null);
+                if (sql != null) {
+                    names.putIfAbsent(sql, new QueryName(type.getSimpleName(), field.getName()));
+                }
+            } catch (IllegalAccessException | RuntimeException ignored) {
+                // поле недоступно - запрос будет учтён как unknown
+            }
+        }
+    }
+
+    public QueryName resolve(String sql) {
+        if (sql == null) {
+            return UNKNOWN;
+        }
+        return names.getOrDefault(sql, UNKNOWN);
+    }
+}
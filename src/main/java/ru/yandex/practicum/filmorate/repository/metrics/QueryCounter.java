@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.repository.metrics;
+
+import org.springframework.stereotype.Component;
+
+// Счётчики SQL-запросов и фиксаций с записью, выполненных текущим потоком. Счёт идёт всегда:
+// start()/stop() дают число запросов HTTP-запроса, statements()/commits() - отметки для вложенных замеров
+@Component
+public class QueryCounter {
+    private static final int STATEMENTS = 0;
+    private static final int COMMITS = 1;
+
+    private final ThreadLocal<long[]> totals = ThreadLocal.withInitial(() -> new long[2]);
+    private final ThreadLocal<Long> startedAt = new ThreadLocal<>();
+
+    public void start() {
+        startedAt.set(statements());
+    }
+
+    public int stop() {
+        Long started = startedAt.get();
+        startedAt.remove();
+        return started == null ? 0 : (int) (statements() - started);
+    }
+
+    public long statements() {
+        return totals.get()[STATEMENTS];
+    }
+
+    public long commits() {
+        return totals.get()[COMMITS];
+    }
+
+    void increment() {
+        totals.get()[STATEMENTS]++;
+    }
+
+    void commit() {
+        totals.get()[COMMITS]++;
+    }
+}
@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.repository.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+// Время вызова каждого метода интерфейсов *Storage (filmorate.storage.calls), число SQL-запросов
+// (filmorate.storage.statements) и фиксаций с записью (filmorate.storage.commits) за вызов.
+// Аспект стоит снаружи @Transactional, поэтому фиксация транзакции метода попадает в его замер
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class StorageMetricsAspect {
+    private static final double[] COUNT_BUCKETS = {1, 2, 3, 5, 10, 20};
+
+    private final MeterRegistry registry;
+    private final QueryCounter counter;
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.repository..*Storage.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        long statements = counter.statements();
+        long commits = counter.commits();
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            String storage = ClassUtils.getUserClass(joinPoint.getTarget()).getSimpleName();
+            String method = joinPoint.getSignature().getName();
+            sample.stop(Timer.builder("filmorate.storage.calls")
+                    .description("Время вызова метода хранилища")
+                    .tag("storage", storage)
+                    .tag("method", method)
+                    .tag("exception", exception)
+                    .serviceLevelObjectives(MeteredJdbcTemplate.LATENCY_BUCKETS)
+                    .register(registry));
+            record("filmorate.storage.statements", "SQL-запросы за вызов метода хранилища",
+                    storage, method, counter.statements() - statements);
+            record("filmorate.storage.commits", "Фиксации с записью за вызов метода хранилища",
+                    storage, method, counter.commits() - commits);
+        }
+    }
+
+    private void record(String name, String description, String storage, String method, long value) {
+        DistributionSummary.builder(name)
+                .description(description)
+                .tag("storage", storage)
+                .tag("method", method)
+                .serviceLevelObjectives(COUNT_BUCKETS)
+                .register(registry)
+                .record(value);
+    }
+}
@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.repository.mpa;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.util.IdIndex;
+
+import java.util.Collection;
+import java.util.List;
+
+// Справочник рейтингов MPA неизменяем, поэтому хранится в памяти в массиве, индексированном по id
+@Slf4j
+@Primary
+@Repository
+@RequiredArgsConstructor
+public class CachedMpaStorage implements MpaStorage {
+    private final MpaRepository mpaRepository;
+    private IdIndex<Mpa> index = IdIndex.empty();
+
+    @PostConstruct
+    public void load() {
+        index = IdIndex.of(mpaRepository.getAll(), Mpa::getId);
+        log.info("Справочник рейтингов загружен: {}", index.size());
+    }
+
+    @Override
+    public Mpa get(long id) {
+        Mpa mpa = index.find(id);
+        if (mpa == null) {
+            log.warn("При запросе рейтинга возникла ошибка: Рейтинг не найден");
+            throw new NotFoundException("Рейтинг " + id + " не найден");
+        }
+        return mpa;
+    }
+
+    @Override
+    public List<Mpa> getAll() {
+        return index.getAll();
+    }
+
+    @Override
+    public boolean exists(long id) {
+        return index.find(id) != null;
+    }
+
+    @Override
+    public void validate(Collection<Long> ids) {
+        for (Long id : ids) {
+            get(id);
+        }
+    }
+}
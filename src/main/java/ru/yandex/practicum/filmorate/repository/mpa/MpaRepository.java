@@ -9,14 +9,14 @@ import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.repository.BaseRepository;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 @Slf4j
 @Repository
 public class MpaRepository extends BaseRepository<Mpa> implements MpaStorage {
     private static final String FIND_BY_ID_QUERY = "SELECT * FROM mpa WHERE mpa_id = ?";
     private static final String FIND_ALL_QUERY = "SELECT * FROM mpa ORDER BY mpa_id";
+    private static final String FIND_EXISTING_IDS_QUERY = "SELECT mpa_id FROM mpa WHERE mpa_id = ANY(?)";
 
     public MpaRepository(JdbcTemplate jdbc, RowMapper<Mpa> mapper) {
         super(jdbc, mapper);
@@ -37,6 +37,25 @@ public class MpaRepository extends BaseRepository<Mpa> implements MpaStorage {
         return findMany(FIND_ALL_QUERY);
     }
 
+    @Override
+    public boolean exists(long id) {
+        return findOne(FIND_BY_ID_QUERY, id).isPresent();
+    }
+
+    @Override
+    public void validate(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Set<Long> missing = new TreeSet<>(ids);
+        missing.removeAll(jdbc.queryForList(FIND_EXISTING_IDS_QUERY, Long.class,
+                new Object[]{ids.toArray(new Long[0])}));
+        if (!missing.isEmpty()) {
+            log.warn("При запросе рейтинга возникла ошибка: Рейтинг не найден");
+            throw new NotFoundException("Рейтинг " + missing.iterator().next() + " не найден");
+        }
+    }
+
     @Override
     protected boolean delete(String query, long id) {
         throw new InternalServerException("Операция недоступна");
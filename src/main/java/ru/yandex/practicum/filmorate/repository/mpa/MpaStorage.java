@@ -2,10 +2,15 @@ package ru.yandex.practicum.filmorate.repository.mpa;
 
 import ru.yandex.practicum.filmorate.model.Mpa;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface MpaStorage {
     Mpa get(long id);
 
     List<Mpa> getAll();
+
+    boolean exists(long id);
+
+    void validate(Collection<Long> ids);
 }
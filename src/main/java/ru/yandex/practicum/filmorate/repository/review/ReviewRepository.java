@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.repository.BaseRepository;
@@ -16,15 +17,20 @@ import java.util.Optional;
 public class ReviewRepository extends BaseRepository<Review> implements ReviewStorage {
     private static final String INSERT_QUERY = "INSERT INTO reviews(content, positive, user_id, film_id, useful)" +
             "VALUES (?, ?, ?, ?, ?)";
-    private static final String UPDATE_QUERY = "UPDATE reviews SET content = ?, positive = ?, useful = ? " +
-            "WHERE review_id = ?";
+    private static final String UPDATE_QUERY = "UPDATE reviews SET content = ?, positive = ? WHERE review_id = ?";
     private static final String DELETE_QUERY = "DELETE FROM reviews WHERE review_id = ?";
     private static final String FIND_BY_ID_QUERY = "SELECT * FROM reviews WHERE review_id = ?";
-    private static final String FIND_MANY_QUERY = "SELECT * FROM reviews ORDER BY useful DESC " +
+    private static final String FIND_MANY_QUERY = "SELECT * FROM reviews ORDER BY useful DESC, review_id " +
             "LIMIT ?";
     private static final String FIND_MANY_BY_FILM_ID_QUERY = "SELECT * FROM reviews WHERE film_id = ? " +
-            "ORDER BY useful DESC LIMIT ?";
+            "ORDER BY useful DESC, review_id LIMIT ?";
     private static final String IS_EXIST_QUERY = "SELECT COUNT(*) FROM reviews WHERE review_id = ?";
+    private static final String LOCK_REVIEW_QUERY = "SELECT review_id FROM reviews WHERE review_id = ? FOR UPDATE";
+    private static final String FIND_VOTE_QUERY = "SELECT vote FROM review_votes WHERE review_id = ? AND user_id = ?";
+    private static final String UPSERT_VOTE_QUERY = "MERGE INTO review_votes(review_id, user_id, vote) " +
+            "KEY (review_id, user_id) VALUES (?, ?, ?)";
+    private static final String DELETE_VOTE_QUERY = "DELETE FROM review_votes WHERE review_id = ? AND user_id = ?";
+    private static final String ADD_USEFUL_QUERY = "UPDATE reviews SET useful = useful + ? WHERE review_id = ?";
 
     public ReviewRepository(JdbcTemplate jdbc, RowMapper<Review> mapper) {
         super(jdbc, mapper);
@@ -52,7 +58,6 @@ public class ReviewRepository extends BaseRepository<Review> implements ReviewSt
                 UPDATE_QUERY,
                 review.getContent(),
                 review.getIsPositive(),
-                review.getUseful(),
                 id
         );
     }
@@ -90,4 +95,39 @@ public class ReviewRepository extends BaseRepository<Review> implements ReviewSt
         long count = jdbc.queryForObject(IS_EXIST_QUERY, Long.class, id);
         return count > 0;
     }
+
+    @Override
+    @Transactional
+    public boolean vote(long reviewId, long userId, int vote) {
+        int previous = lockAndGetVote(reviewId, userId);
+        if (previous == vote) {
+            return false;
+        }
+        jdbc.update(UPSERT_VOTE_QUERY, reviewId, userId, vote);
+        jdbc.update(ADD_USEFUL_QUERY, vote - previous, reviewId);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public boolean removeVote(long reviewId, long userId, int vote) {
+        int previous = lockAndGetVote(reviewId, userId);
+        if (previous != vote) {
+            return false;
+        }
+        jdbc.update(DELETE_VOTE_QUERY, reviewId, userId);
+        jdbc.update(ADD_USEFUL_QUERY, -vote, reviewId);
+        return true;
+    }
+
+    // Блокировка строки отзыва выстраивает конкурирующие голоса за него в очередь,
+    // поэтому прочитанный голос пользователя актуален до конца транзакции
+    private int lockAndGetVote(long reviewId, long userId) {
+        if (jdbc.queryForList(LOCK_REVIEW_QUERY, Long.class, reviewId).isEmpty()) {
+            log.warn("При оценке отзыва возникла ошибка: Отзыв не найден");
+            throw new NotFoundException("Отзыв " + reviewId + " не найден");
+        }
+        List<Integer> votes = jdbc.queryForList(FIND_VOTE_QUERY, Integer.class, reviewId, userId);
+        return votes.isEmpty() ? 0 : votes.getFirst();
+    }
 }
@@ -5,6 +5,9 @@ import ru.yandex.practicum.filmorate.model.Review;
 import java.util.List;
 
 public interface ReviewStorage {
+    int LIKE = 1;
+    int DISLIKE = -1;
+
     Review add(Review review);
 
     void update(Review review);
@@ -16,4 +19,8 @@ public interface ReviewStorage {
     List<Review> getMany(long filmId, long count);
 
     boolean exists(long id);
+
+    boolean vote(long reviewId, long userId, int vote);
+
+    boolean removeVote(long reviewId, long userId, int vote);
 }
@@ -0,0 +1,169 @@
+package ru.yandex.practicum.filmorate.repository.user;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// Таблица friends в памяти: для каждого пользователя отсортированный массив id его друзей и обратный -
+// у кого он сам в друзьях (по нему при удалении пользователя он убирается из чужих списков).
+// Общие друзья - пересечение двух отсортированных массивов
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FriendGraph {
+    private static final String LOAD_QUERY = "SELECT user_id, friend_id FROM friends";
+
+    private final JdbcTemplate jdbc;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, SortedLongSet> friends = new HashMap<>();
+    private final Map<Long, SortedLongSet> followers = new HashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            friends.clear();
+            followers.clear();
+            int[] count = new int[1];
+            jdbc.query(LOAD_QUERY, rs -> {
+                link(rs.getLong("user_id"), rs.getLong("friend_id"));
+                count[0]++;
+            });
+            log.info("Граф друзей загружен: {} связей", count[0]);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addFriend(long userId, long friendId) {
+        lock.writeLock().lock();
+        try {
+            link(userId, friendId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFriend(long userId, long friendId) {
+        lock.writeLock().lock();
+        try {
+            unlink(friends, userId, friendId);
+            unlink(followers, friendId, userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Заменяет список друзей пользователя целиком
+    public void setFriends(long userId, Collection<Long> friendIds) {
+        lock.writeLock().lock();
+        try {
+            removeFriends(userId);
+            for (Long friendId : friendIds) {
+                link(userId, friendId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeUser(long userId) {
+        lock.writeLock().lock();
+        try {
+            removeFriends(userId);
+            SortedLongSet users = followers.remove(userId);
+            if (users != null) {
+                users.forEach(id -> unlink(friends, id, userId));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SortedLongSet getFriends(long userId) {
+        lock.readLock().lock();
+        try {
+            SortedLongSet set = friends.get(userId);
+            return set == null ? new SortedLongSet() : set.copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Пользователи, у которых userId в друзьях: им раскладываются его события
+    public SortedLongSet getFollowers(long userId) {
+        lock.readLock().lock();
+        try {
+            SortedLongSet set = followers.get(userId);
+            return set == null ? new SortedLongSet() : set.copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public SortedLongSet getCommonFriends(long userId, long otherId) {
+        lock.readLock().lock();
+        try {
+            SortedLongSet first = friends.get(userId);
+            SortedLongSet second = friends.get(otherId);
+            if (first == null || second == null) {
+                return new SortedLongSet();
+            }
+            return first.intersect(second);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Выполняет чтение нескольких списков под одной блокировкой, без копирования массивов.
+    // Переданный код не должен сохранять ссылки на множества после возврата
+    public void read(Consumer<View> reader) {
+        lock.readLock().lock();
+        try {
+            reader.accept(new View());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeFriends(long userId) {
+        SortedLongSet current = friends.remove(userId);
+        if (current != null) {
+            current.forEach(friendId -> unlink(followers, friendId, userId));
+        }
+    }
+
+    private void link(long userId, long friendId) {
+        friends.computeIfAbsent(userId, id -> new SortedLongSet()).add(friendId);
+        followers.computeIfAbsent(friendId, id -> new SortedLongSet()).add(userId);
+    }
+
+    private static void unlink(Map<Long, SortedLongSet> map, long key, long value) {
+        SortedLongSet set = map.get(key);
+        if (set != null && set.remove(value) && set.isEmpty()) {
+            map.remove(key);
+        }
+    }
+
+    public class View {
+        private final SortedLongSet empty = new SortedLongSet();
+
+        public SortedLongSet friends(long userId) {
+            return friends.getOrDefault(userId, empty);
+        }
+
+        public SortedLongSet followers(long userId) {
+            return followers.getOrDefault(userId, empty);
+        }
+    }
+}
@@ -4,13 +4,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.repository.BaseRepository;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 @Slf4j
 @Repository("userDb")
@@ -23,22 +23,24 @@ public class UserRepository extends BaseRepository<User> implements UserStorage
     private static final String UPDATE_QUERY = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ? " +
             "WHERE user_id = ?";
     private static final String DELETE_QUERY = "DELETE FROM users WHERE user_id = ?";
+    private static final String RELEASE_LIKES_QUERY = "UPDATE films SET like_count = like_count - 1 " +
+            "WHERE film_id IN (SELECT film_id FROM likes WHERE user_id = ?) AND like_count > 0";
+    private static final String RELEASE_REVIEW_VOTES_QUERY = "UPDATE reviews AS r SET useful = useful - " +
+            "(SELECT v.vote FROM review_votes AS v WHERE v.review_id = r.review_id AND v.user_id = ?) " +
+            "WHERE r.review_id IN (SELECT review_id FROM review_votes WHERE user_id = ?)";
     private static final String FIND_BY_ID_QUERY = "SELECT * FROM users WHERE user_id = ?";
     private static final String FIND_ALL_QUERY = "SELECT * FROM users";
+    private static final String FIND_PAGE_QUERY = "SELECT * FROM users WHERE user_id > ? ORDER BY user_id LIMIT ?";
+    private static final String FIND_BY_IDS_QUERY = "SELECT * FROM users WHERE user_id = ANY(?) ORDER BY user_id";
     private static final String IS_EXIST_QUERY = "SELECT COUNT(*) FROM users WHERE user_id = ?";
-    private static final String GET_FRIENDS_QUERY = "SELECT * FROM users AS u JOIN friends AS f " +
-            "ON u.user_id = f.friend_id WHERE f.user_id = ?";
-    private static final String COMMON_FRIENDS_QUERY = "SELECT * FROM users u, friends f, friends o " +
-            "WHERE u.user_id = f.friend_id AND u.user_id = o.friend_id AND f.user_id = ? AND o.user_id = ?";
-    private static final String FIND_USERS_ID_WITH_SIMILAR_LIKES = "SELECT user_id " +
-            "FROM likes " +
-            "WHERE film_id IN (SELECT film_id FROM likes WHERE user_id = ?) AND user_id <> ? " +
-            "GROUP BY user_id " +
-            "ORDER BY COUNT(*) DESC " +
-            "LIMIT 5";
-
-    public UserRepository(JdbcTemplate jdbc, RowMapper<User> mapper) {
+    private static final String EXISTING_IDS_QUERY = "SELECT user_id FROM users WHERE user_id = ANY(?)";
+
+    // граф только читается: его обновляет UserService после успешной записи в таблицу friends
+    private final FriendGraph friendGraph;
+
+    public UserRepository(JdbcTemplate jdbc, RowMapper<User> mapper, FriendGraph friendGraph) {
         super(jdbc, mapper);
+        this.friendGraph = friendGraph;
     }
 
     @Override
@@ -72,7 +74,11 @@ public class UserRepository extends BaseRepository<User> implements UserStorage
     }
 
     @Override
+    @Transactional
     public void delete(long id) {
+        // Лайки и оценки отзывов пользователя удаляются каскадно, счётчики уменьшаем в той же транзакции
+        jdbc.update(RELEASE_LIKES_QUERY, id);
+        jdbc.update(RELEASE_REVIEW_VOTES_QUERY, id, id);
         delete(DELETE_QUERY, id);
     }
 
@@ -84,18 +90,39 @@ public class UserRepository extends BaseRepository<User> implements UserStorage
             throw new NotFoundException("Пользователь " + id + " не найден");
         }
         User user = optionalUser.get();
-        setFriends(user);
+        setFriends(List.of(user));
 
         return user;
     }
 
     @Override
     public List<User> getAll() {
-        List<User> users = findMany(FIND_ALL_QUERY);
-        for (User user : users) {
-            setFriends(user);
+        return setFriends(findMany(FIND_ALL_QUERY));
+    }
+
+    @Override
+    public List<User> getPage(long afterId, int limit) {
+        return setFriends(findMany(FIND_PAGE_QUERY, afterId, limit));
+    }
+
+    // Пользователи в порядке переданных id
+    @Override
+    public List<User> getByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
         }
-        return users;
+        Map<Long, User> usersById = new HashMap<>();
+        for (User user : findMany(FIND_BY_IDS_QUERY, new Object[]{ids.toArray(new Long[0])})) {
+            usersById.put(user.getId(), user);
+        }
+        List<User> users = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = usersById.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return setFriends(users);
     }
 
     @Override
@@ -104,6 +131,15 @@ public class UserRepository extends BaseRepository<User> implements UserStorage
         return count > 0;
     }
 
+    @Override
+    public Set<Long> getExistingIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbc.queryForList(EXISTING_IDS_QUERY, Long.class,
+                (Object) ids.toArray(new Long[0])));
+    }
+
     @Override
     public void addFriend(long userId, long friendId) {
         jdbc.update(INSERT_FRIENDS_QUERY, userId, friendId);
@@ -116,23 +152,31 @@ public class UserRepository extends BaseRepository<User> implements UserStorage
 
     @Override
     public List<User> getFriends(long userId) {
-        return findMany(GET_FRIENDS_QUERY, userId);
+        return findByIds(friendGraph.getFriends(userId));
     }
 
     @Override
     public List<User> getCommonFriends(long userId, long otherId) {
-        return findMany(COMMON_FRIENDS_QUERY, userId, otherId);
+        return findByIds(friendGraph.getCommonFriends(userId, otherId));
     }
 
-    @Override
-    public List<Long> getUsersIdWithSimilarLikes(long id) {
-        return new ArrayList<>(jdbc.queryForList(FIND_USERS_ID_WITH_SIMILAR_LIKES, Long.class, id, id));
+    // Строки пользователей из списка id одним запросом
+    private List<User> findByIds(SortedLongSet ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Long[] params = new Long[ids.size()];
+        for (int i = 0; i < params.length; i++) {
+            params[i] = ids.get(i);
+        }
+        return setFriends(findMany(FIND_BY_IDS_QUERY, (Object) params));
     }
 
-    private void setFriends(User user) {
-        List<User> friends = findMany(GET_FRIENDS_QUERY, user.getId());
-        for (User friend : friends) {
-            user.addFriend(friend.getId());
+    // Списки друзей берутся из графа в памяти, без запроса к friends
+    private List<User> setFriends(List<User> users) {
+        for (User user : users) {
+            friendGraph.getFriends(user.getId()).forEach(user::addFriend);
         }
+        return users;
     }
 }
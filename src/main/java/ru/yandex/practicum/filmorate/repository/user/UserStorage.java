@@ -2,7 +2,9 @@ package ru.yandex.practicum.filmorate.repository.user;
 
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface UserStorage {
 
@@ -16,8 +18,14 @@ public interface UserStorage {
 
     List<User> getAll();
 
+    List<User> getPage(long afterId, int limit);
+
+    List<User> getByIds(List<Long> ids);
+
     boolean exists(long id);
 
+    Set<Long> getExistingIds(Collection<Long> ids);
+
     void addFriend(long userId, long friendId);
 
     void removeFriend(long userId, long friendId);
@@ -25,6 +33,4 @@ public interface UserStorage {
     List<User> getFriends(long id);
 
     List<User> getCommonFriends(long userId, long otherId);
-
-    List<Long> getUsersIdWithSimilarLikes(long id);
 }
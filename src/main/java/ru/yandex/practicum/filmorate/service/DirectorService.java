@@ -2,11 +2,14 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.repository.director.DirectorChangedEvent;
 import ru.yandex.practicum.filmorate.repository.director.DirectorStorage;
+import ru.yandex.practicum.filmorate.repository.film.FilmSearchIndex;
 
 import java.util.List;
 
@@ -15,6 +18,9 @@ import java.util.List;
 @RequiredArgsConstructor
 public class DirectorService {
     private final DirectorStorage directorStorage;
+    private final FilmSearchIndex searchIndex;
+    private final EntityVersions versions;
+    private final ApplicationEventPublisher events;
 
     public Director getDirector(long id) {
         return directorStorage.get(id);
@@ -25,7 +31,10 @@ public class DirectorService {
     }
 
     public Director addDirector(Director director) {
-        return directorStorage.add(director);
+        Director created = directorStorage.add(director);
+        searchIndex.putDirector(created);
+        versions.directorsChanged();
+        return created;
     }
 
     public Director updateDirector(Director director) {
@@ -38,10 +47,17 @@ public class DirectorService {
             log.warn("При обновлении режиссера возникла ошибка: Режиссер не найден");
             throw new NotFoundException("Режиссер " + newDirectorId + " не найден");
         }
-        return directorStorage.update(director);
+        Director updated = directorStorage.update(director);
+        searchIndex.putDirector(updated);
+        versions.directorsChanged();
+        events.publishEvent(new DirectorChangedEvent(newDirectorId));
+        return updated;
     }
 
     public void deleteDirector(long id) {
         directorStorage.delete(id);
+        searchIndex.removeDirector(id);
+        versions.directorsChanged();
+        events.publishEvent(new DirectorChangedEvent(id));
     }
 }
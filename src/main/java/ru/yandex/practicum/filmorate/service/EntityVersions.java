@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Версии данных для условных GET (ETag): по ним контроллер отвечает 304,
+// не обращаясь к базе и не сериализуя ответ. Версия фильма меняется при изменении, лайке и удалении,
+// версия режиссёров - при любом их изменении (имена режиссёров входят и в ответ по фильму).
+// Жанры и рейтинги MPA заполняются миграцией и не меняются, их версия - время запуска.
+// Last-Modified не используется: он с точностью до секунды, и два изменения за одну секунду
+// дали бы устаревший 304. Версии хранятся в памяти и начинаются со времени запуска,
+// поэтому ETag прошлого запуска не совпадёт
+@Component
+public class EntityVersions {
+    private final AtomicLong clock;
+    private final long initial;
+    private final Map<Long, Long> films = new ConcurrentHashMap<>();
+    private volatile long directors;
+
+    public EntityVersions() {
+        clock = new AtomicLong(System.currentTimeMillis() * 1000);
+        initial = clock.get();
+        directors = initial;
+    }
+
+    public String film(long id) {
+        return "\"film-" + id + "-" + films.getOrDefault(id, initial) + "-" + directors + "\"";
+    }
+
+    public String directors() {
+        return "\"directors-" + directors + "\"";
+    }
+
+    public String genres() {
+        return "\"genres-" + initial + "\"";
+    }
+
+    public String mpa() {
+        return "\"mpa-" + initial + "\"";
+    }
+
+    public void filmChanged(long id) {
+        films.put(id, clock.incrementAndGet());
+    }
+
+    public void directorsChanged() {
+        directors = clock.incrementAndGet();
+    }
+}
@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmImportRow;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.repository.director.DirectorStorage;
+import ru.yandex.practicum.filmorate.repository.film.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.repository.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.repository.film.FilmStorage;
+import ru.yandex.practicum.filmorate.repository.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.repository.mpa.MpaStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Массовый импорт фильмов: строки проверяются в памяти (аннотации модели, справочники жанров и MPA,
+// режиссёры загружаются один раз на импорт) и пишутся пачками по batch-size фильмов.
+// Строка с ошибкой не мешает остальным, ошибка попадает в отчёт с номером строки
+@Slf4j
+@Service
+public class FilmImportService {
+    private static final LocalDate FIRST_FILM_DATE = LocalDate.of(1895, 12, 28);
+
+    private final FilmStorage filmStorage;
+    private final GenreStorage genreStorage;
+    private final MpaStorage mpaStorage;
+    private final DirectorStorage directorStorage;
+    private final FilmLeaderboard leaderboard;
+    private final FilmSearchIndex searchIndex;
+    private final EntityVersions versions;
+    private final Validator validator;
+    private final int batchSize;
+
+    public FilmImportService(FilmStorage filmStorage, GenreStorage genreStorage, MpaStorage mpaStorage,
+                             DirectorStorage directorStorage, FilmLeaderboard leaderboard,
+                             FilmSearchIndex searchIndex, EntityVersions versions, Validator validator,
+                             @Value("${filmorate.import.batch-size:1000}") int batchSize) {
+        this.filmStorage = filmStorage;
+        this.genreStorage = genreStorage;
+        this.mpaStorage = mpaStorage;
+        this.directorStorage = directorStorage;
+        this.leaderboard = leaderboard;
+        this.searchIndex = searchIndex;
+        this.versions = versions;
+        this.validator = validator;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public ImportReport importFilms(Iterator<FilmImportRow> rows) {
+        Set<Long> directorIds = directorStorage.getAll().stream()
+                .map(Director::getId)
+                .collect(Collectors.toSet());
+        List<Long> ids = new ArrayList<>();
+        List<ImportReport.RowError> errors = new ArrayList<>();
+        List<FilmImportRow> batch = new ArrayList<>(batchSize);
+        while (rows.hasNext()) {
+            FilmImportRow row = rows.next();
+            while (ids.size() <= row.index()) {
+                ids.add(null);
+            }
+            String error = row.error() != null ? row.error() : validate(row.film(), directorIds);
+            if (error != null) {
+                errors.add(new ImportReport.RowError(row.index(), error));
+                continue;
+            }
+            batch.add(row);
+            if (batch.size() == batchSize) {
+                save(batch, ids, errors);
+            }
+        }
+        save(batch, ids, errors);
+        int imported = ids.size() - errors.size();
+        log.info("Импорт фильмов: загружено {} из {}", imported, ids.size());
+        return new ImportReport(ids.size(), imported, ids, errors);
+    }
+
+    private void save(List<FilmImportRow> batch, List<Long> ids, List<ImportReport.RowError> errors) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Film> films = batch.stream().map(FilmImportRow::film).toList();
+        try {
+            filmStorage.addAll(films);
+        } catch (DataAccessException e) {
+            log.warn("При импорте фильмов возникла ошибка: {}", e.getMessage());
+            for (FilmImportRow row : batch) {
+                errors.add(new ImportReport.RowError(row.index(), "Не удалось сохранить фильм"));
+            }
+            batch.clear();
+            return;
+        }
+        for (FilmImportRow row : batch) {
+            Film film = row.film();
+            ids.set(row.index(), film.getId());
+            leaderboard.put(film);
+            searchIndex.putFilm(film);
+            versions.filmChanged(film.getId());
+        }
+        batch.clear();
+    }
+
+    private String validate(Film film, Set<Long> directorIds) {
+        Set<ConstraintViolation<Film>> violations = validator.validate(film);
+        if (!violations.isEmpty()) {
+            return violations.iterator().next().getMessage();
+        }
+        if (film.getReleaseDate().isBefore(FIRST_FILM_DATE)) {
+            return "Дата релиза — не раньше 28 декабря 1895 года";
+        }
+        if (film.getMpa() == null || !mpaStorage.exists(film.getMpa().getId())) {
+            return "Рейтинг MPA не найден";
+        }
+        for (Genre genre : film.getGenres()) {
+            if (!genreStorage.exists(genre.getId())) {
+                return "Жанр " + genre.getId() + " не найден";
+            }
+        }
+        for (Director director : film.getDirectors()) {
+            if (director.getId() == null || !directorIds.contains(director.getId())) {
+                return "Режиссер " + director.getId() + " не найден";
+            }
+        }
+        // повтор жанра или режиссёра нарушил бы первичный ключ связи и сорвал бы запись всей пачки
+        Set<Long> seenGenres = new HashSet<>();
+        film.getGenres().removeIf(genre -> !seenGenres.add(genre.getId()));
+        Set<Long> seenDirectors = new HashSet<>();
+        film.getDirectors().removeIf(director -> !seenDirectors.add(director.getId()));
+        return null;
+    }
+}
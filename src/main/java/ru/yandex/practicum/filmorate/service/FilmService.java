@@ -8,7 +8,10 @@ import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.model.*;
 import ru.yandex.practicum.filmorate.repository.director.DirectorStorage;
 import ru.yandex.practicum.filmorate.repository.event.EventStorage;
+import ru.yandex.practicum.filmorate.repository.film.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.repository.film.FilmSearchIndex;
 import ru.yandex.practicum.filmorate.repository.film.FilmStorage;
+import ru.yandex.practicum.filmorate.repository.film.LikeIndex;
 import ru.yandex.practicum.filmorate.repository.genre.GenreStorage;
 import ru.yandex.practicum.filmorate.repository.mpa.MpaStorage;
 import ru.yandex.practicum.filmorate.repository.user.UserStorage;
@@ -27,10 +30,18 @@ public class FilmService {
     private final MpaStorage mpaStorage;
     private final EventStorage eventStorage;
     private final DirectorStorage directorStorage;
+    private final FilmLeaderboard leaderboard;
+    private final FilmSearchIndex searchIndex;
+    private final LikeIndex likeIndex;
+    private final EntityVersions versions;
 
     public Film create(Film film) {
         validateFilmData(film);
-        return filmStorage.add(film);
+        Film created = filmStorage.add(film);
+        leaderboard.put(created);
+        searchIndex.putFilm(created);
+        versions.filmChanged(created.getId());
+        return created;
     }
 
     public void update(Film newFilmData) {
@@ -48,16 +59,30 @@ public class FilmService {
         }
         validateFilmData(newFilmData);
         filmStorage.update(newFilmData);
+        leaderboard.put(newFilmData);
+        searchIndex.putFilm(newFilmData);
+        versions.filmChanged(newFilmDataId);
     }
 
     public List<Film> getAll() {
         return filmStorage.getAll();
     }
 
+    public List<Film> getPage(long afterId, int limit) {
+        return filmStorage.getPage(afterId, limit);
+    }
+
     public Film getFilm(long id) {
         return filmStorage.get(id);
     }
 
+    public void checkFilmExists(long id) {
+        if (!filmStorage.exists(id)) {
+            log.warn("Фильм не найден");
+            throw new NotFoundException("Фильм " + id + " не найден");
+        }
+    }
+
     public void like(long filmId, long userId) {
         if (!userStorage.exists(userId)) {
             log.warn("Не удалось поставить лайк: Пользователь не найден");
@@ -67,7 +92,11 @@ public class FilmService {
             log.warn("Не удалось поставить лайк: Фильм не найден");
             throw new NotFoundException("Фильм " + filmId + " не найден");
         }
-        filmStorage.like(filmId, userId);
+        if (filmStorage.like(filmId, userId)) {
+            leaderboard.like(filmId);
+            likeIndex.like(filmId, userId);
+            versions.filmChanged(filmId);
+        }
         eventStorage.add(new Event(userId, EventType.LIKE, Operation.ADD, filmId));
     }
 
@@ -80,7 +109,11 @@ public class FilmService {
             log.warn("Не удалось удалить лайк: Фильм не найден");
             throw new NotFoundException("Фильм " + filmId + " не найден");
         }
-        filmStorage.removeLike(filmId, userId);
+        if (filmStorage.removeLike(filmId, userId)) {
+            leaderboard.removeLike(filmId);
+            likeIndex.removeLike(filmId, userId);
+            versions.filmChanged(filmId);
+        }
         eventStorage.add(new Event(userId, EventType.LIKE, Operation.REMOVE, filmId));
     }
 
@@ -90,6 +123,10 @@ public class FilmService {
             throw new NotFoundException("Фильм " + id + " не найден");
         }
         filmStorage.delete(id);
+        leaderboard.remove(id);
+        searchIndex.removeFilm(id);
+        likeIndex.removeFilm(id);
+        versions.filmChanged(id);
     }
 
     public List<Film> getDirectorFilms(long directorId, String sortBy) {
@@ -105,24 +142,17 @@ public class FilmService {
     }
 
     public List<Film> getFilmsSearch(String query, String by) {
-        return switch (by) {
-            case "title" -> filmStorage.getFilmsSearchByTitle(query);
-            case "director" -> filmStorage.getFilmsSearchByDirector(query);
-            case "director,title", "title,director" -> filmStorage.getFilmsSearchByDirectorOrTitle(query);
+        Set<Long> found = switch (by) {
+            case "title" -> searchIndex.search(query, true, false);
+            case "director" -> searchIndex.search(query, false, true);
+            case "director,title", "title,director" -> searchIndex.search(query, true, true);
             default -> throw new ValidationException("Не заполнен тип поиска");
         };
+        return filmStorage.getByIds(leaderboard.rank(found));
     }
 
     public List<Film> getTopFilms(long count, Long genreId, Integer year) {
-        if (genreId != null && year != null) {
-            return filmStorage.getTopFilmsByGenreAndYear(count, genreId, year);
-        } else if (genreId != null) {
-            return filmStorage.getTopFilmsByGenre(count, genreId);
-        } else if (year != null) {
-            return filmStorage.getTopFilmsByYear(count, year);
-        } else {
-            return filmStorage.getTopFilms(count);
-        }
+        return filmStorage.getByIds(leaderboard.getTop(count, genreId, year));
     }
 
     public List<Film> getCommonFilms(long userId, long friendId) {
@@ -150,9 +180,7 @@ public class FilmService {
 
         Set<Genre> filmGenres = film.getGenres();
         if (filmGenres != null && !filmGenres.isEmpty()) {
-            for (Genre genre : filmGenres) {
-                genreStorage.get(genre.getId());
-            }
+            genreStorage.validate(filmGenres.stream().map(Genre::getId).toList());
         }
     }
 }
@@ -0,0 +1,150 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.LikeBatchReport;
+import ru.yandex.practicum.filmorate.model.LikeBatchReport.Outcome;
+import ru.yandex.practicum.filmorate.model.LikeBatchReport.Status;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.repository.event.EventStorage;
+import ru.yandex.practicum.filmorate.repository.film.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.repository.film.FilmStorage;
+import ru.yandex.practicum.filmorate.repository.film.LikeIndex;
+import ru.yandex.practicum.filmorate.repository.user.UserStorage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Пакет лайков, накопленных клиентом офлайн: существование фильмов и пользователей проверяется
+// двумя запросами на весь пакет, операции над одной парой фильм-пользователь сворачиваются
+// в последнюю, и итоговые лайки пишутся пакетными MERGE/DELETE в одной транзакции.
+// События ленты пишутся по каждой принятой операции, как и при одиночном лайке
+@Slf4j
+@Service
+public class LikeBatchService {
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final EventStorage eventStorage;
+    private final FilmLeaderboard leaderboard;
+    private final LikeIndex likeIndex;
+    private final EntityVersions versions;
+    private final int maxSize;
+
+    public LikeBatchService(FilmStorage filmStorage, UserStorage userStorage, EventStorage eventStorage,
+                            FilmLeaderboard leaderboard, LikeIndex likeIndex, EntityVersions versions,
+                            @Value("${filmorate.likes.batch-max-size:10000}") int maxSize) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.eventStorage = eventStorage;
+        this.leaderboard = leaderboard;
+        this.likeIndex = likeIndex;
+        this.versions = versions;
+        this.maxSize = maxSize;
+    }
+
+    public LikeBatchReport apply(List<LikeChange> changes) {
+        if (changes.size() > maxSize) {
+            log.warn("Пакет лайков отклонён: {} операций", changes.size());
+            throw new ValidationException("В пакете лайков не больше " + maxSize + " операций");
+        }
+        Set<Long> filmIds = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        for (LikeChange change : changes) {
+            if (change != null && change.filmId() != null && change.userId() != null) {
+                filmIds.add(change.filmId());
+                userIds.add(change.userId());
+            }
+        }
+        Set<Long> existingFilms = filmStorage.getExistingIds(filmIds);
+        Set<Long> existingUsers = userStorage.getExistingIds(userIds);
+
+        Outcome[] outcomes = new Outcome[changes.size()];
+        // номера принятых операций по парам фильм-пользователь в порядке пакета
+        Map<Pair, List<Integer>> accepted = new LinkedHashMap<>();
+        for (int i = 0; i < changes.size(); i++) {
+            String error = validate(changes.get(i), existingFilms, existingUsers);
+            if (error != null) {
+                outcomes[i] = new Outcome(i, Status.REJECTED, error);
+                continue;
+            }
+            LikeChange change = changes.get(i);
+            accepted.computeIfAbsent(new Pair(change.filmId(), change.userId()), pair -> new ArrayList<>()).add(i);
+        }
+
+        List<LikeChange> net = new ArrayList<>(accepted.size());
+        for (List<Integer> indexes : accepted.values()) {
+            net.add(changes.get(indexes.getLast()));
+        }
+        boolean[] changed = net.isEmpty() ? new boolean[0] : filmStorage.setLikes(net);
+
+        int pairIdx = 0;
+        for (List<Integer> indexes : accepted.values()) {
+            LikeChange last = net.get(pairIdx);
+            boolean lastChanged = changed[pairIdx++];
+            // исходное состояние восстанавливается по тому, изменила ли таблицу последняя операция пары
+            boolean liked = (last.operation() == Operation.ADD) != lastChanged;
+            boolean wasLiked = liked;
+            for (int i : indexes) {
+                boolean like = changes.get(i).operation() == Operation.ADD;
+                outcomes[i] = new Outcome(i, liked == like ? Status.UNCHANGED : Status.APPLIED, null);
+                liked = like;
+            }
+            if (lastChanged) {
+                updateIndexes(last, wasLiked);
+            }
+        }
+
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < changes.size(); i++) {
+            if (outcomes[i].status() != Status.REJECTED) {
+                LikeChange change = changes.get(i);
+                events.add(new Event(change.userId(), EventType.LIKE, change.operation(), change.filmId()));
+            }
+        }
+        if (!events.isEmpty()) {
+            eventStorage.addAll(events);
+        }
+
+        int applied = (int) Arrays.stream(outcomes).filter(outcome -> outcome.status() == Status.APPLIED).count();
+        log.info("Пакет лайков: {} операций, применено {}", changes.size(), applied);
+        return new LikeBatchReport(changes.size(), applied, Arrays.asList(outcomes));
+    }
+
+    private void updateIndexes(LikeChange change, boolean wasLiked) {
+        if (wasLiked) {
+            leaderboard.removeLike(change.filmId());
+            likeIndex.removeLike(change.filmId(), change.userId());
+        } else {
+            leaderboard.like(change.filmId());
+            likeIndex.like(change.filmId(), change.userId());
+        }
+        versions.filmChanged(change.filmId());
+    }
+
+    private String validate(LikeChange change, Set<Long> existingFilms, Set<Long> existingUsers) {
+        if (change == null || change.filmId() == null || change.userId() == null
+                || (change.operation() != Operation.ADD && change.operation() != Operation.REMOVE)) {
+            return "Необходимо указать filmId, userId и operation ADD или REMOVE";
+        }
+        if (!existingUsers.contains(change.userId())) {
+            return "Пользователь " + change.userId() + " не найден";
+        }
+        if (!existingFilms.contains(change.filmId())) {
+            return "Фильм " + change.filmId() + " не найден";
+        }
+        return null;
+    }
+
+    private record Pair(long filmId, long userId) {
+    }
+}
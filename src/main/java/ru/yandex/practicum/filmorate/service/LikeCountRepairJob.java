@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.film.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.repository.film.FilmStorage;
+
+// Разовый пересчёт films.like_count по таблице likes: заполняет счётчик в базах,
+// созданных до его появления, и исправляет расхождения после ручных правок данных
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "filmorate.likes.repair-on-startup", havingValue = "true")
+public class LikeCountRepairJob implements ApplicationRunner {
+    private final FilmStorage filmStorage;
+    private final FilmLeaderboard leaderboard;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int repaired = filmStorage.repairLikeCounts();
+        if (repaired > 0) {
+            log.warn("Счётчик лайков исправлен у {} фильмов", repaired);
+            leaderboard.rebuild();
+        } else {
+            log.info("Счётчики лайков согласованы с таблицей likes");
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.repository.film.LikeIndex;
+import ru.yandex.practicum.filmorate.util.LongIntHashMap;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
+
+import java.util.*;
+
+// Рекомендации "похожие пользователи лайкали": соседи пользователя находятся через общие лайки,
+// их сходство считается по коэффициенту Жаккара, а фильмы соседей ранжируются по сумме сходства
+@Slf4j
+@Service
+public class RecommendationService {
+    private final LikeIndex likeIndex;
+    private final int size;
+    private final int neighbours;
+
+    public RecommendationService(LikeIndex likeIndex,
+                                 @Value("${filmorate.recommendations.size:5}") int size,
+                                 @Value("${filmorate.recommendations.neighbours:50}") int neighbours) {
+        this.likeIndex = likeIndex;
+        this.size = size;
+        this.neighbours = neighbours;
+    }
+
+    public List<Long> recommend(long userId) {
+        List<Long> result = new ArrayList<>();
+        likeIndex.read(view -> {
+            SortedLongSet liked = view.userFilms(userId);
+            if (liked.isEmpty()) {
+                return;
+            }
+
+            // Количество общих лайков с каждым пользователем, лайкнувшим те же фильмы
+            LongIntHashMap overlap = new LongIntHashMap(64);
+            liked.forEach(filmId -> view.filmUsers(filmId).forEach(otherId -> {
+                if (otherId != userId) {
+                    overlap.addTo(otherId, 1);
+                }
+            }));
+
+            List<Neighbour> similar = new ArrayList<>(overlap.size());
+            overlap.forEach((otherId, common) -> {
+                int union = liked.size() + view.userFilms(otherId).size() - common;
+                similar.add(new Neighbour(otherId, (double) common / union));
+            });
+            similar.sort(Comparator.comparingDouble(Neighbour::similarity).reversed()
+                    .thenComparingLong(Neighbour::userId));
+
+            Map<Long, Double> scores = new HashMap<>();
+            for (Neighbour neighbour : similar.subList(0, Math.min(neighbours, similar.size()))) {
+                view.userFilms(neighbour.userId()).forEach(filmId -> {
+                    if (!liked.contains(filmId)) {
+                        scores.merge(filmId, neighbour.similarity(), Double::sum);
+                    }
+                });
+            }
+
+            scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(size)
+                    .forEach(entry -> result.add(entry.getKey()));
+        });
+        return result;
+    }
+
+    private record Neighbour(long userId, double similarity) {
+    }
+}
@@ -78,30 +78,22 @@ public class ReviewService {
 
     public void like(long reviewId, long userId) {
         checkUserExist(userId);
-        Review review = reviewStorage.get(reviewId);
-        review.like();
-        reviewStorage.update(review);
+        reviewStorage.vote(reviewId, userId, ReviewStorage.LIKE);
     }
 
     public void dislike(long reviewId, long userId) {
         checkUserExist(userId);
-        Review review = reviewStorage.get(reviewId);
-        review.dislike();
-        reviewStorage.update(review);
+        reviewStorage.vote(reviewId, userId, ReviewStorage.DISLIKE);
     }
 
     public void deleteLike(long reviewId, long userId) {
         checkUserExist(userId);
-        Review review = reviewStorage.get(reviewId);
-        review.removeLike();
-        reviewStorage.update(review);
+        reviewStorage.removeVote(reviewId, userId, ReviewStorage.LIKE);
     }
 
     public void deleteDislike(long reviewId, long userId) {
         checkUserExist(userId);
-        Review review = reviewStorage.get(reviewId);
-        review.removeDislike();
-        reviewStorage.update(review);
+        reviewStorage.removeVote(reviewId, userId, ReviewStorage.DISLIKE);
     }
 
     private void checkUserExist(long userId) {
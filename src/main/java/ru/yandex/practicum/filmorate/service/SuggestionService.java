@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.repository.film.LikeIndex;
+import ru.yandex.practicum.filmorate.repository.user.FriendGraph;
+import ru.yandex.practicum.filmorate.util.LongIntHashMap;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// "Возможно, вы знакомы": друзья друзей, которых ещё нет в друзьях, ранжируются по числу общих друзей
+// с добавкой за общие лайки. Обход ограничен max-visits просмотренными связями на запрос,
+// поэтому у пользователя с популярными друзьями время ответа не растёт вместе с их числом
+@Slf4j
+@Service
+public class SuggestionService {
+    // на сколько кандидатов с наибольшим числом общих друзей считаются общие лайки
+    private static final int SHORTLIST_FACTOR = 5;
+
+    private final FriendGraph friendGraph;
+    private final LikeIndex likeIndex;
+    private final int size;
+    private final int maxVisits;
+    private final double likeWeight;
+
+    public SuggestionService(FriendGraph friendGraph, LikeIndex likeIndex,
+                             @Value("${filmorate.suggestions.size:10}") int size,
+                             @Value("${filmorate.suggestions.max-visits:20000}") int maxVisits,
+                             @Value("${filmorate.suggestions.like-weight:0.5}") double likeWeight) {
+        this.friendGraph = friendGraph;
+        this.likeIndex = likeIndex;
+        this.size = size;
+        this.maxVisits = maxVisits;
+        this.likeWeight = likeWeight;
+    }
+
+    public List<Long> suggest(long userId) {
+        List<Candidate> shortlist = new ArrayList<>();
+        int[] budget = {maxVisits};
+        friendGraph.read(view -> {
+            SortedLongSet friends = view.friends(userId);
+            LongIntHashMap mutual = new LongIntHashMap(64);
+            for (int i = 0; i < friends.size() && budget[0] > 0; i++) {
+                SortedLongSet friendsOfFriend = view.friends(friends.get(i));
+                for (int j = 0; j < friendsOfFriend.size() && budget[0] > 0; j++, budget[0]--) {
+                    long candidate = friendsOfFriend.get(j);
+                    if (candidate != userId && !friends.contains(candidate)) {
+                        mutual.addTo(candidate, 1);
+                    }
+                }
+            }
+            mutual.forEach((candidate, common) -> shortlist.add(new Candidate(candidate, common, common)));
+        });
+        if (budget[0] <= 0) {
+            log.debug("Поиск знакомых для пользователя {} остановлен по лимиту обхода", userId);
+        }
+        shortlist.sort(Comparator.comparingDouble(Candidate::score).reversed()
+                .thenComparingLong(Candidate::userId));
+        List<Candidate> ranked = new ArrayList<>(shortlist.subList(0,
+                Math.min(shortlist.size(), size * SHORTLIST_FACTOR)));
+
+        if (likeWeight > 0 && !ranked.isEmpty()) {
+            likeIndex.read(view -> {
+                SortedLongSet liked = view.userFilms(userId);
+                if (liked.isEmpty()) {
+                    return;
+                }
+                for (int i = 0; i < ranked.size(); i++) {
+                    Candidate candidate = ranked.get(i);
+                    int shared = liked.intersectionSize(view.userFilms(candidate.userId()));
+                    ranked.set(i, new Candidate(candidate.userId(), candidate.mutualFriends(),
+                            candidate.mutualFriends() + likeWeight * shared));
+                }
+            });
+            ranked.sort(Comparator.comparingDouble(Candidate::score).reversed()
+                    .thenComparingLong(Candidate::userId));
+        }
+
+        return ranked.stream()
+                .limit(size)
+                .map(Candidate::userId)
+                .toList();
+    }
+
+    private record Candidate(long userId, int mutualFriends, double score) {
+    }
+}
@@ -2,20 +2,28 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.FeedCursor;
 import ru.yandex.practicum.filmorate.model.EventType;
 import ru.yandex.practicum.filmorate.model.Operation;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.film.FilmChangedEvent;
+import ru.yandex.practicum.filmorate.repository.film.FilmLeaderboard;
 import ru.yandex.practicum.filmorate.repository.film.FilmStorage;
+import ru.yandex.practicum.filmorate.repository.film.LikeIndex;
 import ru.yandex.practicum.filmorate.repository.event.EventStorage;
+import ru.yandex.practicum.filmorate.repository.event.FriendFeedStorage;
+import ru.yandex.practicum.filmorate.repository.user.FriendGraph;
 import ru.yandex.practicum.filmorate.repository.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.SortedLongSet;
 
-import java.util.Collections;
+import java.util.Collection;
 import java.util.List;
 
 @Slf4j
@@ -24,11 +32,22 @@ import java.util.List;
 public class UserService {
     private final UserStorage userStorage;
     private final EventStorage eventStorage;
+    private final FriendFeedStorage friendFeedStorage;
     private final FilmStorage filmStorage;
+    private final FilmLeaderboard leaderboard;
+    private final LikeIndex likeIndex;
+    private final FriendGraph friendGraph;
+    private final RecommendationService recommendationService;
+    private final SuggestionService suggestionService;
+    private final EntityVersions versions;
+    private final ApplicationEventPublisher events;
 
     public User create(User user) {
         checkName(user);
-        return userStorage.add(user);
+        User created = userStorage.add(user);
+        friendGraph.setFriends(created.getId(), created.getFriends());
+        updateFollows(created.getId(), new SortedLongSet(), created.getFriends());
+        return created;
     }
 
     public void update(User newUserData) {
@@ -42,13 +61,20 @@ public class UserService {
             throw new NotFoundException("Пользователь " + newUserDataId + " не найден");
         }
         checkName(newUserData);
+        SortedLongSet oldFriends = friendGraph.getFriends(newUserDataId);
         userStorage.update(newUserData);
+        friendGraph.setFriends(newUserDataId, newUserData.getFriends());
+        updateFollows(newUserDataId, oldFriends, newUserData.getFriends());
     }
 
     public List<User> findAll() {
         return userStorage.getAll();
     }
 
+    public List<User> getPage(long afterId, int limit) {
+        return userStorage.getPage(afterId, limit);
+    }
+
     public User getUser(long id) {
         return userStorage.get(id);
     }
@@ -57,6 +83,8 @@ public class UserService {
         checkUserExist(userId);
         checkUserExist(friendId);
         userStorage.addFriend(userId, friendId);
+        friendGraph.addFriend(userId, friendId);
+        friendFeedStorage.follow(userId, friendId);
         eventStorage.add(new Event(userId, EventType.FRIEND, Operation.ADD, friendId));
     }
 
@@ -64,6 +92,8 @@ public class UserService {
         checkUserExist(userId);
         checkUserExist(friendId);
         userStorage.removeFriend(userId, friendId);
+        friendGraph.removeFriend(userId, friendId);
+        friendFeedStorage.unfollow(userId, friendId);
         eventStorage.add(new Event(userId, EventType.FRIEND, Operation.REMOVE, friendId));
     }
 
@@ -80,7 +110,19 @@ public class UserService {
 
     public void deleteUser(long id) {
         checkUserExist(id);
+        // Лайки пользователя удаляются каскадно, поэтому заранее снимаем их из рейтинга
+        List<Long> likedFilms = filmStorage.getLikedFilmIds(id);
+        SortedLongSet friends = friendGraph.getFriends(id);
         userStorage.delete(id);
+        friendGraph.removeUser(id);
+        // у друзей стало на одного подписчика меньше: кто-то из них мог перестать быть популярным
+        friends.forEach(friendId -> friendFeedStorage.unfollow(id, friendId));
+        for (Long filmId : likedFilms) {
+            leaderboard.removeLike(filmId);
+            versions.filmChanged(filmId);
+        }
+        likeIndex.removeUser(id);
+        events.publishEvent(new FilmChangedEvent(likedFilms));
     }
 
     public List<Event> getEvents(long userId) {
@@ -88,12 +130,39 @@ public class UserService {
         return eventStorage.getFeed(userId);
     }
 
+    public List<Event> getEvents(long userId, FeedCursor after, int limit) {
+        checkUserExist(userId);
+        return eventStorage.getFeed(userId, after.timestamp(), after.eventId(), limit);
+    }
+
+    public List<Event> getFriendEvents(long userId, FeedCursor after, int limit) {
+        checkUserExist(userId);
+        return friendFeedStorage.getFeed(userId, after.timestamp(), after.eventId(), limit);
+    }
+
     public List<Film> getRecommendations(long id) {
-        List<Long> usersIdWithSimilarLikes = userStorage.getUsersIdWithSimilarLikes(id);
-        if (usersIdWithSimilarLikes.isEmpty()) {
-            return Collections.emptyList();
-        }
-        return filmStorage.getRecommendationFilms(usersIdWithSimilarLikes, id);
+        return filmStorage.getByIds(recommendationService.recommend(id));
+    }
+
+    public List<User> getSuggestions(long userId) {
+        checkUserExist(userId);
+        return userStorage.getByIds(suggestionService.suggest(userId));
+    }
+
+    // Лента друзей следует за списком, заменённым целиком: как при addFriend и removeFriend
+    private void updateFollows(long userId, SortedLongSet oldFriends, Collection<Long> newFriends) {
+        SortedLongSet friends = new SortedLongSet();
+        newFriends.forEach(friends::add);
+        oldFriends.forEach(friendId -> {
+            if (!friends.contains(friendId)) {
+                friendFeedStorage.unfollow(userId, friendId);
+            }
+        });
+        friends.forEach(friendId -> {
+            if (!oldFriends.contains(friendId)) {
+                friendFeedStorage.follow(userId, friendId);
+            }
+        });
     }
 
     private void checkName(User user) {
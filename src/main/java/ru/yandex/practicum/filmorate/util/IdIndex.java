@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+// Неизменяемый справочник в памяти: элементы в массиве, индексированном по id, и в исходном порядке
+public final class IdIndex<T> {
+    private static final IdIndex<?> EMPTY = new IdIndex<>(new Object[0], List.of());
+
+    private final Object[] byId;
+    private final List<T> all;
+
+    private IdIndex(Object[] byId, List<T> all) {
+        this.byId = byId;
+        this.all = all;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> IdIndex<T> empty() {
+        return (IdIndex<T>) EMPTY;
+    }
+
+    public static <T> IdIndex<T> of(List<T> items, ToLongFunction<T> id) {
+        int maxId = 0;
+        for (T item : items) {
+            maxId = Math.max(maxId, (int) id.applyAsLong(item));
+        }
+        Object[] byId = new Object[maxId + 1];
+        for (T item : items) {
+            byId[(int) id.applyAsLong(item)] = item;
+        }
+        return new IdIndex<>(byId, List.copyOf(items));
+    }
+
+    // null, если элемента с таким id нет
+    @SuppressWarnings("unchecked")
+    public T find(long id) {
+        if (id < 0 || id >= byId.length) {
+            return null;
+        }
+        return (T) byId[(int) id];
+    }
+
+    public List<T> getAll() {
+        return new ArrayList<>(all);
+    }
+
+    public int size() {
+        return all.size();
+    }
+}
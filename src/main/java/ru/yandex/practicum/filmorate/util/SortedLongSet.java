@@ -0,0 +1,169 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+// Множество long-идентификаторов в отсортированном массиве без упаковки в Long.
+// Поиск - бинарный, вставка и удаление сдвигают хвост массива
+public class SortedLongSet {
+    private static final long[] EMPTY = new long[0];
+
+    private long[] values;
+    private int size;
+
+    public SortedLongSet() {
+        values = EMPTY;
+    }
+
+    public SortedLongSet(long[] sorted, int size) {
+        this.values = sorted;
+        this.size = size;
+    }
+
+    public static SortedLongSet of(long... ids) {
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return new SortedLongSet(sorted, size);
+    }
+
+    public boolean add(long value) {
+        int idx = Arrays.binarySearch(values, 0, size, value);
+        if (idx >= 0) {
+            return false;
+        }
+        int insertAt = -idx - 1;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        values[insertAt] = value;
+        size++;
+        return true;
+    }
+
+    public void addAll(SortedLongSet other) {
+        if (isEmpty()) {
+            values = other.toArray();
+            size = other.size;
+            return;
+        }
+        for (int i = 0; i < other.size; i++) {
+            add(other.values[i]);
+        }
+    }
+
+    public boolean remove(long value) {
+        int idx = Arrays.binarySearch(values, 0, size, value);
+        if (idx < 0) {
+            return false;
+        }
+        System.arraycopy(values, idx + 1, values, idx, size - idx - 1);
+        size--;
+        return true;
+    }
+
+    public boolean contains(long value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    public long get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void forEach(LongConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(values[i]);
+        }
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    public SortedLongSet copy() {
+        return new SortedLongSet(toArray(), size);
+    }
+
+    public SortedLongSet intersect(SortedLongSet other) {
+        long[] common = new long[Math.min(size, other.size)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            long a = values[i];
+            long b = other.values[j];
+            if (a == b) {
+                common[count++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return new SortedLongSet(common, count);
+    }
+
+    public int intersectionSize(SortedLongSet other) {
+        int i = 0;
+        int j = 0;
+        int common = 0;
+        while (i < size && j < other.size) {
+            long a = values[i];
+            long b = other.values[j];
+            if (a == b) {
+                common++;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return common;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SortedLongSet other)) {
+            return false;
+        }
+        return Arrays.equals(values, 0, size, other.values, 0, other.size);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + Long.hashCode(values[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
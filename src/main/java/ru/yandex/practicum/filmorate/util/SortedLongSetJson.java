@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// SortedLongSet в JSON - массив чисел: значения пишутся и читаются напрямую, без промежуточной коллекции Long
+public final class SortedLongSetJson {
+    private SortedLongSetJson() {
+    }
+
+    public static class Serializer extends StdSerializer<SortedLongSet> {
+        public Serializer() {
+            super(SortedLongSet.class);
+        }
+
+        @Override
+        public void serialize(SortedLongSet set, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray(set, set.size());
+            for (int i = 0; i < set.size(); i++) {
+                gen.writeNumber(set.get(i));
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    public static class Deserializer extends StdDeserializer<SortedLongSet> {
+        public Deserializer() {
+            super(SortedLongSet.class);
+        }
+
+        @Override
+        public SortedLongSet deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (!parser.isExpectedStartArrayToken()) {
+                return (SortedLongSet) context.handleUnexpectedToken(SortedLongSet.class, parser);
+            }
+            long[] values = new long[16];
+            int size = 0;
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token != JsonToken.VALUE_NUMBER_INT) {
+                    return (SortedLongSet) context.handleUnexpectedToken(SortedLongSet.class, parser);
+                }
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size << 1);
+                }
+                values[size++] = parser.getLongValue();
+            }
+            return SortedLongSet.of(Arrays.copyOf(values, size));
+        }
+
+        @Override
+        public SortedLongSet getNullValue(DeserializationContext context) {
+            return new SortedLongSet();
+        }
+    }
+}
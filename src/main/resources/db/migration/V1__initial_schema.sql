@@ -78,4 +78,4 @@ CREATE TABLE if not EXISTS events (
     operation VARCHAR(6) NOT NULL,
     entity_id BIGINT NOT NULL,
     PRIMARY KEY (event_id)
-);
\ No newline at end of file
+);
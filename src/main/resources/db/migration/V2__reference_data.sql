@@ -11,4 +11,4 @@ VALUES  ('Комедия'),
         ('Мультфильм'),
         ('Триллер'),
         ('Документальный'),
-        ('Боевик');
\ No newline at end of file
+        ('Боевик');
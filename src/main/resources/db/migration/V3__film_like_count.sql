@@ -0,0 +1,10 @@
+-- денормализованное количество лайков, ведётся вместе с таблицей likes
+ALTER TABLE films ADD COLUMN IF NOT EXISTS like_count BIGINT NOT NULL DEFAULT 0;
+
+-- заполнение для уже существующих фильмов: обновляются только строки с расхождением,
+-- поэтому повторный запуск на заполненной базе ничего не меняет
+UPDATE films AS f
+SET like_count = (SELECT COUNT(*) FROM likes AS l WHERE l.film_id = f.film_id)
+WHERE like_count <> (SELECT COUNT(*) FROM likes AS l WHERE l.film_id = f.film_id);
+
+CREATE INDEX IF NOT EXISTS films_like_count_idx ON films (like_count DESC, film_id);
@@ -0,0 +1,11 @@
+-- оценки отзывов по пользователям; reviews.useful меняется на разницу голосов в той же транзакции
+create TABLE IF NOT EXISTS review_votes (
+    review_id BIGINT REFERENCES reviews(review_id) ON delete CASCADE,
+    user_id BIGINT REFERENCES users(user_id) ON delete CASCADE,
+    vote SMALLINT NOT NULL CHECK (vote IN (-1, 1)),
+    PRIMARY KEY (review_id, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS review_votes_user_idx ON review_votes (user_id);
+CREATE INDEX IF NOT EXISTS reviews_useful_idx ON reviews (useful DESC, review_id);
+CREATE INDEX IF NOT EXISTS reviews_film_useful_idx ON reviews (film_id, useful DESC, review_id);
@@ -0,0 +1,9 @@
+-- вторичные индексы под условия WHERE/JOIN/ORDER BY запросов хранилищ;
+-- QueryPlanTest проверяет, что запросы не возвращаются к полному сканированию таблиц
+CREATE INDEX IF NOT EXISTS likes_user_idx ON likes (user_id, film_id);
+CREATE INDEX IF NOT EXISTS friends_friend_idx ON friends (friend_id, user_id);
+CREATE INDEX IF NOT EXISTS film_genres_genre_idx ON film_genres (genre_id, film_id);
+CREATE INDEX IF NOT EXISTS film_directors_director_idx ON film_directors (director_id, film_id);
+CREATE INDEX IF NOT EXISTS films_release_date_idx ON films (release_date);
+CREATE INDEX IF NOT EXISTS films_mpa_idx ON films (mpa_id);
+CREATE INDEX IF NOT EXISTS events_user_idx ON events (user_id, event_id);
@@ -0,0 +1,3 @@
+-- лента пользователя читается страницами в порядке (timestamp, event_id)
+CREATE INDEX IF NOT EXISTS events_user_time_idx ON events (user_id, timestamp, event_id);
+DROP INDEX IF EXISTS events_user_idx;
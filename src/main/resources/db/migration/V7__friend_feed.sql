@@ -0,0 +1,18 @@
+-- лента действий друзей: у каждого пользователя свои ссылки на последние события тех, кого он добавил в друзья.
+-- событие однозначно задаёт timestamp, поэтому ключ (user_id, timestamp, event_id) уникален и сразу задаёт порядок ленты
+CREATE TABLE IF NOT EXISTS friend_feed (
+    user_id BIGINT NOT NULL REFERENCES users(user_id) ON delete CASCADE,
+    timestamp BIGINT NOT NULL,
+    event_id BIGINT NOT NULL REFERENCES events(event_id) ON delete CASCADE,
+    author_id BIGINT NOT NULL REFERENCES users(user_id) ON delete CASCADE,
+    PRIMARY KEY (user_id, timestamp, event_id)
+);
+
+-- заполнение по уже существующим дружбам: последние 500 событий (filmorate.feed.timeline-size по умолчанию)
+INSERT INTO friend_feed(user_id, timestamp, event_id, author_id)
+SELECT user_id, timestamp, event_id, author_id FROM (
+    SELECT f.user_id, e.timestamp, e.event_id, e.user_id AS author_id,
+           ROW_NUMBER() OVER (PARTITION BY f.user_id ORDER BY e.timestamp DESC, e.event_id DESC) AS rn
+    FROM friends AS f JOIN events AS e ON e.user_id = f.friend_id
+) AS recent
+WHERE rn <= 500;
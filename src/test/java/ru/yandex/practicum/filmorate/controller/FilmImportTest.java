@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.repository.director.DirectorRepository;
+import ru.yandex.practicum.filmorate.repository.film.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.repository.genre.CachedGenreStorage;
+import ru.yandex.practicum.filmorate.repository.genre.GenreRepository;
+import ru.yandex.practicum.filmorate.repository.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.repository.mappers.DirectorRowMapper;
+import ru.yandex.practicum.filmorate.repository.mappers.FilmRowMapper;
+import ru.yandex.practicum.filmorate.repository.mappers.GenreRowMapper;
+import ru.yandex.practicum.filmorate.repository.mappers.MpaRowMapper;
+import ru.yandex.practicum.filmorate.repository.mpa.CachedMpaStorage;
+import ru.yandex.practicum.filmorate.repository.mpa.MpaRepository;
+import ru.yandex.practicum.filmorate.repository.mpa.MpaStorage;
+import ru.yandex.practicum.filmorate.service.EntityVersions;
+import ru.yandex.practicum.filmorate.service.FilmImportService;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({FilmRepository.class, FilmRowMapper.class, FilmLeaderboard.class, FilmSearchIndex.class,
+        MpaRepository.class, MpaRowMapper.class, CachedMpaStorage.class,
+        GenreRepository.class, GenreRowMapper.class, CachedGenreStorage.class,
+        DirectorRepository.class, DirectorRowMapper.class})
+public class FilmImportTest {
+    private static final String FILM = "{\"name\":\"film\",\"description\":\"d\",\"releaseDate\":\"2000-01-01\"," +
+            "\"duration\":100,\"mpa\":{\"id\":1}}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    @Autowired
+    private FilmRepository filmRepository;
+    @Autowired
+    private GenreStorage genreStorage;
+    @Autowired
+    private MpaStorage mpaStorage;
+    @Autowired
+    private DirectorRepository directorRepository;
+    @Autowired
+    private FilmLeaderboard leaderboard;
+    @Autowired
+    private FilmSearchIndex searchIndex;
+    @Autowired
+    private JdbcTemplate jdbc;
+    private FilmImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("DELETE FROM films");
+        importService = new FilmImportService(filmRepository, genreStorage, mpaStorage, directorRepository,
+                leaderboard, searchIndex, new EntityVersions(),
+                Validation.buildDefaultValidatorFactory().getValidator(), 2);
+    }
+
+    @Test
+    public void brokenArrayElementShouldEndImportWithSavedIdsInReport() {
+        String body = "[" + FILM + "," + FILM + "," + FILM + ", {\"name\": ]";
+
+        ImportReport report = importService.importFilms(FilmImportReader.jsonArray(objectMapper, stream(body)));
+
+        assertEquals(4, report.total());
+        assertEquals(3, report.imported());
+        assertThat(report.ids().subList(0, 3)).doesNotContainNull();
+        assertNull(report.ids().get(3));
+        assertEquals(1, report.errors().size());
+        assertEquals(3, report.errors().getFirst().index());
+        assertEquals(3, jdbc.queryForObject("SELECT COUNT(*) FROM films", Integer.class));
+    }
+
+    @Test
+    public void nullElementShouldBeRowError() {
+        ImportReport array = importService.importFilms(
+                FilmImportReader.jsonArray(objectMapper, stream("[null, " + FILM + "]")));
+        ImportReport ndjson = importService.importFilms(
+                FilmImportReader.ndjson(objectMapper, stream(String.join("\n", Arrays.asList("null", FILM)))));
+
+        for (ImportReport report : new ImportReport[]{array, ndjson}) {
+            assertEquals(2, report.total());
+            assertEquals(1, report.imported());
+            assertEquals(0, report.errors().getFirst().index());
+            assertNotNull(report.ids().get(1));
+        }
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
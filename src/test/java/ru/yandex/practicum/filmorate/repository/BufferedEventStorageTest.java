@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.repository.event.BufferedEventStorage;
+import ru.yandex.practicum.filmorate.repository.event.EventRepository;
+import ru.yandex.practicum.filmorate.repository.event.FriendFeedRepository;
+import ru.yandex.practicum.filmorate.repository.mappers.EventRowMapper;
+import ru.yandex.practicum.filmorate.repository.user.FriendGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Фоновый поток пишет через своё соединение, поэтому тест работает без общей откатываемой транзакции
+@JdbcTest
+@AutoConfigureTestDatabase
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({EventRepository.class, FriendFeedRepository.class, EventRowMapper.class, FriendGraph.class})
+public class BufferedEventStorageTest {
+    private final EventRepository eventRepository;
+    private final FriendFeedRepository friendFeedRepository;
+    private final JdbcTemplate jdbc;
+    private BufferedEventStorage storage;
+    private long userId;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("DELETE FROM events");
+        jdbc.update("DELETE FROM users");
+        jdbc.update("INSERT INTO users(email, login, name, birthday) VALUES ('a@mail.ru', 'a', 'a', '2000-01-01')");
+        userId = jdbc.queryForObject("SELECT MAX(user_id) FROM users", Long.class);
+        // маленький буфер, чтобы проверить и ожидание места в нём
+        storage = new BufferedEventStorage(eventRepository, friendFeedRepository, new SimpleMeterRegistry(),
+                "async", 16, 8, 20, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.close();
+        jdbc.update("DELETE FROM events");
+        jdbc.update("DELETE FROM users");
+    }
+
+    @Test
+    public void eventsFromSeveralThreadsShouldBeVisibleInFeed() throws InterruptedException {
+        int threads = 4;
+        int perThread = 250;
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int base = t * perThread;
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    storage.add(new Event(userId, EventType.LIKE, Operation.ADD, base + i));
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        List<Event> feed = storage.getFeed(userId);
+
+        assertEquals(threads * perThread, feed.size());
+        assertEquals(threads * perThread, feed.stream().map(Event::getEntityId).distinct().count());
+    }
+
+    @Test
+    public void closeShouldWriteBufferedEvents() {
+        for (int i = 0; i < 10; i++) {
+            storage.add(new Event(userId, EventType.FRIEND, Operation.ADD, i));
+        }
+
+        storage.close();
+
+        assertEquals(10, jdbc.queryForObject("SELECT COUNT(*) FROM events", Integer.class));
+    }
+
+    @Test
+    public void overflowShouldKeepEventOrder() {
+        // без ожидания места в буфере: переполнение сразу ведёт к синхронной записи
+        storage.close();
+        storage = new BufferedEventStorage(eventRepository, friendFeedRepository, new SimpleMeterRegistry(),
+                "async", 16, 8, 20, 0);
+        for (int i = 0; i < 200; i++) {
+            storage.add(new Event(userId, EventType.LIKE, Operation.ADD, i));
+        }
+
+        storage.flush();
+        List<Long> entityIds = jdbc.queryForList("SELECT entity_id FROM events ORDER BY event_id", Long.class);
+        assertEquals(200, entityIds.size());
+        for (int i = 0; i < entityIds.size(); i++) {
+            assertEquals(i, entityIds.get(i));
+        }
+    }
+
+    @Test
+    public void failedEventShouldNotDropTheRestOfBatch() {
+        storage.add(new Event(userId, EventType.LIKE, Operation.ADD, 1));
+        storage.add(new Event(userId + 1000, EventType.LIKE, Operation.ADD, 2));
+        storage.add(new Event(userId, EventType.LIKE, Operation.ADD, 3));
+
+        assertEquals(List.of(1L, 3L), storage.getFeed(userId).stream().map(Event::getEntityId).toList());
+    }
+}
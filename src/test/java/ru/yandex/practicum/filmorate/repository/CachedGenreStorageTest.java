@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.repository.genre.CachedGenreStorage;
+import ru.yandex.practicum.filmorate.repository.genre.GenreRepository;
+import ru.yandex.practicum.filmorate.repository.mappers.GenreRowMapper;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@ExtendWith(OutputCaptureExtension.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({GenreRepository.class, GenreRowMapper.class, CachedGenreStorage.class})
+public class CachedGenreStorageTest {
+    private final CachedGenreStorage genreStorage;
+    private final GenreRepository genreRepository;
+    private final JdbcTemplate jdbc;
+
+    @Test
+    public void getShouldServeGenresLoadedAtStartup() {
+        Genre genre = genreStorage.get(1);
+
+        assertEquals("Комедия", genre.getName());
+        assertSame(genre, genreStorage.get(1));
+        // справочник не перечитывается из базы
+        jdbc.update("UPDATE genres SET name = 'renamed' WHERE genre_id = 1");
+        assertEquals("Комедия", genreStorage.get(1).getName());
+    }
+
+    @Test
+    public void getAllShouldReturnCopyInRepositoryOrder() {
+        List<Genre> genres = genreStorage.getAll();
+
+        assertThat(genres).usingRecursiveComparison().isEqualTo(genreRepository.getAll());
+        genres.clear();
+        assertEquals(6, genreStorage.getAll().size());
+    }
+
+    @Test
+    public void existsShouldCheckDictionary() {
+        assertTrue(genreStorage.exists(1));
+        assertTrue(genreStorage.exists(6));
+        assertFalse(genreStorage.exists(0));
+        assertFalse(genreStorage.exists(7));
+        assertFalse(genreStorage.exists(-1));
+    }
+
+    @Test
+    public void getShouldLogAndThrowForUnknownGenre(CapturedOutput output) {
+        NotFoundException e = assertThrows(NotFoundException.class, () -> genreStorage.get(100));
+
+        assertEquals("Жанр 100 не найден", e.getMessage());
+        assertThat(output.getOut()).contains("При запросе жанра возникла ошибка: Жанр не найден");
+        assertThrows(NotFoundException.class, () -> genreStorage.get(-1));
+    }
+
+    @Test
+    public void validateShouldRejectUnknownGenre() {
+        genreStorage.validate(List.of(1L, 2L, 6L));
+
+        NotFoundException e = assertThrows(NotFoundException.class,
+                () -> genreStorage.validate(List.of(1L, 100L)));
+        assertEquals("Жанр 100 не найден", e.getMessage());
+    }
+}
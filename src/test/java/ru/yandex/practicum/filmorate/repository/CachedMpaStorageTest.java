@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.repository.mpa.CachedMpaStorage;
+import ru.yandex.practicum.filmorate.repository.mpa.MpaRepository;
+import ru.yandex.practicum.filmorate.repository.mappers.MpaRowMapper;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@ExtendWith(OutputCaptureExtension.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({MpaRepository.class, MpaRowMapper.class, CachedMpaStorage.class})
+public class CachedMpaStorageTest {
+    private final CachedMpaStorage mpaStorage;
+    private final MpaRepository mpaRepository;
+    private final JdbcTemplate jdbc;
+
+    @Test
+    public void getShouldServeMpasLoadedAtStartup() {
+        Mpa mpa = mpaStorage.get(1);
+
+        assertEquals("G", mpa.getName());
+        assertSame(mpa, mpaStorage.get(1));
+        // справочник не перечитывается из базы
+        jdbc.update("UPDATE mpa SET name = 'renamed' WHERE mpa_id = 1");
+        assertEquals("G", mpaStorage.get(1).getName());
+    }
+
+    @Test
+    public void getAllShouldReturnCopyInRepositoryOrder() {
+        List<Mpa> mpas = mpaStorage.getAll();
+
+        assertThat(mpas).usingRecursiveComparison().isEqualTo(mpaRepository.getAll());
+        mpas.clear();
+        assertEquals(5, mpaStorage.getAll().size());
+    }
+
+    @Test
+    public void existsShouldCheckDictionary() {
+        assertTrue(mpaStorage.exists(1));
+        assertTrue(mpaStorage.exists(5));
+        assertFalse(mpaStorage.exists(0));
+        assertFalse(mpaStorage.exists(6));
+        assertFalse(mpaStorage.exists(-1));
+    }
+
+    @Test
+    public void getShouldLogAndThrowForUnknownMpa(CapturedOutput output) {
+        NotFoundException e = assertThrows(NotFoundException.class, () -> mpaStorage.get(100));
+
+        assertEquals("Рейтинг 100 не найден", e.getMessage());
+        assertThat(output.getOut()).contains("При запросе рейтинга возникла ошибка: Рейтинг не найден");
+        assertThrows(NotFoundException.class, () -> mpaStorage.get(-1));
+    }
+
+    @Test
+    public void validateShouldRejectUnknownMpa() {
+        mpaStorage.validate(List.of(1L, 2L, 5L));
+
+        NotFoundException e = assertThrows(NotFoundException.class,
+                () -> mpaStorage.validate(List.of(1L, 100L)));
+        assertEquals("Рейтинг 100 не найден", e.getMessage());
+    }
+}
@@ -0,0 +1,174 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.director.DirectorChangedEvent;
+import ru.yandex.practicum.filmorate.repository.film.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.repository.film.FilmChangedEvent;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.genre.CachedGenreStorage;
+import ru.yandex.practicum.filmorate.repository.genre.GenreRepository;
+import ru.yandex.practicum.filmorate.repository.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.repository.mappers.FilmRowMapper;
+import ru.yandex.practicum.filmorate.repository.mappers.GenreRowMapper;
+import ru.yandex.practicum.filmorate.repository.mappers.MpaRowMapper;
+import ru.yandex.practicum.filmorate.repository.mappers.UserRowMapper;
+import ru.yandex.practicum.filmorate.repository.mpa.CachedMpaStorage;
+import ru.yandex.practicum.filmorate.repository.mpa.MpaRepository;
+import ru.yandex.practicum.filmorate.repository.mpa.MpaStorage;
+import ru.yandex.practicum.filmorate.repository.user.FriendGraph;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+import ru.yandex.practicum.filmorate.repository.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({FilmRepository.class, FilmRowMapper.class,
+        MpaRepository.class, MpaRowMapper.class, CachedMpaStorage.class,
+        GenreRepository.class, GenreRowMapper.class, CachedGenreStorage.class,
+        UserRepository.class, FriendGraph.class, UserRowMapper.class})
+public class CachingFilmStorageTest {
+    @Autowired
+    private FilmRepository filmRepository;
+    @Autowired
+    private MpaStorage mpaStorage;
+    @Autowired
+    private GenreStorage genreStorage;
+    @Autowired
+    private FilmRowMapper filmRowMapper;
+    @Autowired
+    private UserStorage userStorage;
+    @Autowired
+    private JdbcTemplate jdbc;
+    private SimpleMeterRegistry registry;
+    private CachingFilmStorage filmStorage;
+    private Film film;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("DELETE FROM films");
+        registry = new SimpleMeterRegistry();
+        filmStorage = new CachingFilmStorage(filmRepository, registry, 100, 60);
+        film = new Film();
+        film.setName("filmName");
+        film.setDescription("filmDescription");
+        film.setReleaseDate(LocalDate.of(2005, 10, 12));
+        film.setDuration(120);
+        film.setMpa(mpaStorage.get(1));
+        filmStorage.add(film);
+    }
+
+    @Test
+    public void getShouldReturnCachedCopy() {
+        Film cached = filmStorage.get(film.getId());
+        cached.setName("changedByCaller");
+        jdbc.update("UPDATE films SET name = 'changedInDb' WHERE film_id = ?", film.getId());
+
+        assertEquals("filmName", filmStorage.get(film.getId()).getName());
+        assertEquals("filmName", filmStorage.getByIds(List.of(film.getId())).getFirst().getName());
+    }
+
+    @Test
+    public void existsShouldNotCountAsCacheLookup() {
+        filmStorage.get(film.getId());
+        assertTrue(filmStorage.exists(film.getId()));
+        assertFalse(filmStorage.exists(-1));
+
+        assertEquals(0, cacheGets("hit"));
+        assertEquals(1, cacheGets("miss"));
+    }
+
+    private double cacheGets(String result) {
+        return registry.get("cache.gets").tag("result", result).functionCounter().count();
+    }
+
+    @Test
+    public void writesShouldInvalidateCachedFilm() {
+        User user = new User();
+        user.setEmail("mail@mail.ru");
+        user.setLogin("login123");
+        user.setName("someName");
+        user.setBirthday(LocalDate.of(2000, 10, 12));
+        userStorage.add(user);
+
+        filmStorage.get(film.getId());
+        filmStorage.like(film.getId(), user.getId());
+        assertEquals(1, filmStorage.get(film.getId()).getLikes().size());
+
+        film.setName("updated");
+        filmStorage.update(film);
+        assertEquals("updated", filmStorage.get(film.getId()).getName());
+
+        filmStorage.delete(film.getId());
+        assertThrows(NotFoundException.class, () -> filmStorage.get(film.getId()));
+    }
+
+    @Test
+    public void eventsShouldInvalidateCachedFilm() {
+        jdbc.update("INSERT INTO directors(name) VALUES ('director')");
+        Director director = new Director();
+        director.setId(jdbc.queryForObject("SELECT MAX(director_id) FROM directors", Long.class));
+        director.setName("director");
+        film.addDirector(director);
+        filmStorage.update(film);
+        filmStorage.get(film.getId());
+
+        jdbc.update("UPDATE directors SET name = 'renamed' WHERE director_id = ?", director.getId());
+        filmStorage.onDirectorChanged(new DirectorChangedEvent(director.getId()));
+        assertEquals("renamed", filmStorage.get(film.getId()).getDirectors().iterator().next().getName());
+
+        jdbc.update("UPDATE films SET name = 'changedInDb' WHERE film_id = ?", film.getId());
+        filmStorage.onFilmChanged(new FilmChangedEvent(List.of(film.getId())));
+        assertEquals("changedInDb", filmStorage.get(film.getId()).getName());
+    }
+
+    @Test
+    public void changedNestedObjectsShouldNotReachCache() {
+        film.addGenre(genreStorage.get(1));
+        filmStorage.update(film);
+        Film cached = filmStorage.get(film.getId());
+        cached.getMpa().setName("changedByCaller");
+        cached.getGenres().iterator().next().setName("changedByCaller");
+
+        Film again = filmStorage.get(film.getId());
+        assertEquals(mpaStorage.get(1).getName(), again.getMpa().getName());
+        assertEquals(genreStorage.get(1).getName(), again.getGenres().iterator().next().getName());
+    }
+
+    @Test
+    public void bulkLoadRacingWithInvalidationShouldNotCacheStaleFilm() {
+        CachingFilmStorage[] storage = new CachingFilmStorage[1];
+        // фильм меняется после того, как пакетная загрузка его прочитала, но до записи в кэш
+        FilmRepository racing = new FilmRepository(jdbc, filmRowMapper, genreStorage, mpaStorage, false, 0) {
+            @Override
+            public List<Film> getByIds(List<Long> ids) {
+                List<Film> films = super.getByIds(ids);
+                jdbc.update("UPDATE films SET name = 'changedInDb' WHERE film_id = ?", film.getId());
+                storage[0].onFilmChanged(new FilmChangedEvent(ids));
+                return films;
+            }
+        };
+        storage[0] = new CachingFilmStorage(racing, new SimpleMeterRegistry(), 100, 60);
+
+        assertEquals("filmName", storage[0].getByIds(List.of(film.getId())).getFirst().getName());
+        assertEquals("changedInDb", storage[0].get(film.getId()).getName());
+        racing.close();
+    }
+}
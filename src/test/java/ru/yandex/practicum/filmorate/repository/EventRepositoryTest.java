@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.FeedCursor;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.repository.event.EventRepository;
+import ru.yandex.practicum.filmorate.repository.event.EventStorage;
+import ru.yandex.practicum.filmorate.repository.mappers.EventRowMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({EventRepository.class, EventRowMapper.class})
+public class EventRepositoryTest {
+    private final EventStorage eventStorage;
+    private final JdbcTemplate jdbc;
+    private long userId;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("DELETE FROM events");
+        jdbc.update("DELETE FROM users");
+        jdbc.update("INSERT INTO users(email, login, name, birthday) VALUES ('a@mail.ru', 'a', 'a', '2000-01-01')");
+        userId = jdbc.queryForObject("SELECT MAX(user_id) FROM users", Long.class);
+    }
+
+    private void addEvent(long timestamp, long entityId) {
+        Event event = new Event(userId, EventType.LIKE, Operation.ADD, entityId);
+        event.setTimestamp(timestamp);
+        eventStorage.add(event);
+    }
+
+    @Test
+    public void feedPagesShouldFollowTimestampAndIdOrder() {
+        // события с одинаковым временем не должны теряться и повторяться на границе страниц
+        addEvent(300, 1);
+        addEvent(100, 2);
+        addEvent(200, 3);
+        addEvent(200, 4);
+        addEvent(200, 5);
+
+        List<Long> paged = new ArrayList<>();
+        FeedCursor cursor = FeedCursor.START;
+        List<Event> page;
+        do {
+            page = eventStorage.getFeed(userId, cursor.timestamp(), cursor.eventId(), 2);
+            page.forEach(event -> paged.add(event.getEntityId()));
+            if (!page.isEmpty()) {
+                cursor = FeedCursor.of(page.getLast());
+            }
+        } while (page.size() == 2);
+
+        assertEquals(List.of(2L, 3L, 4L, 5L, 1L), paged);
+        assertEquals(paged, eventStorage.getFeed(userId).stream().map(Event::getEntityId).toList());
+    }
+}
@@ -0,0 +1,134 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.film.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.FilmStorage;
+import ru.yandex.practicum.filmorate.repository.genre.CachedGenreStorage;
+import ru.yandex.practicum.filmorate.repository.genre.GenreRepository;
+import ru.yandex.practicum.filmorate.repository.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.repository.mappers.FilmRowMapper;
+import ru.yandex.practicum.filmorate.repository.mappers.GenreRowMapper;
+import ru.yandex.practicum.filmorate.repository.mappers.MpaRowMapper;
+import ru.yandex.practicum.filmorate.repository.mappers.UserRowMapper;
+import ru.yandex.practicum.filmorate.repository.mpa.CachedMpaStorage;
+import ru.yandex.practicum.filmorate.repository.mpa.MpaRepository;
+import ru.yandex.practicum.filmorate.repository.mpa.MpaStorage;
+import ru.yandex.practicum.filmorate.repository.user.FriendGraph;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+import ru.yandex.practicum.filmorate.repository.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({FilmRepository.class, FilmRowMapper.class, FilmLeaderboard.class,
+        MpaRepository.class, MpaRowMapper.class, CachedMpaStorage.class,
+        GenreRepository.class, GenreRowMapper.class, CachedGenreStorage.class,
+        UserRepository.class, FriendGraph.class, UserRowMapper.class})
+public class FilmLeaderboardTest {
+    private final FilmStorage filmStorage;
+    private final FilmLeaderboard leaderboard;
+    private final MpaStorage mpaStorage;
+    private final GenreStorage genreStorage;
+    private final UserStorage userStorage;
+    private final JdbcTemplate jdbc;
+    private Film comedy2005;
+    private Film drama2005;
+    private Film comedy1950;
+    private User user;
+    private User user2;
+
+    private Film createFilm(String name, int year, long genreId) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("description");
+        film.setReleaseDate(LocalDate.of(year, 1, 1));
+        film.setDuration(100);
+        film.setMpa(mpaStorage.get(1));
+        film.addGenre(genreStorage.get(genreId));
+        return filmStorage.add(film);
+    }
+
+    private User createUser(String login) {
+        User newUser = new User();
+        newUser.setEmail(login + "@mail.ru");
+        newUser.setLogin(login);
+        newUser.setName(login);
+        newUser.setBirthday(LocalDate.of(2000, 1, 1));
+        return userStorage.add(newUser);
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("DELETE FROM films");
+        jdbc.update("DELETE FROM users");
+        comedy2005 = createFilm("comedy2005", 2005, 1);
+        drama2005 = createFilm("drama2005", 2005, 2);
+        comedy1950 = createFilm("comedy1950", 1950, 1);
+        user = createUser("user");
+        user2 = createUser("user2");
+
+        filmStorage.like(drama2005.getId(), user.getId());
+        filmStorage.like(drama2005.getId(), user2.getId());
+        filmStorage.like(comedy1950.getId(), user.getId());
+        leaderboard.rebuild();
+    }
+
+    @Test
+    public void shouldRankFilmsByLikesAfterRebuild() {
+        assertThat(leaderboard.getTop(10, null, null))
+                .containsExactly(drama2005.getId(), comedy1950.getId(), comedy2005.getId());
+    }
+
+    @Test
+    public void shouldFilterByGenreAndYear() {
+        assertThat(leaderboard.getTop(10, 1L, null))
+                .containsExactly(comedy1950.getId(), comedy2005.getId());
+        assertThat(leaderboard.getTop(10, null, 2005))
+                .containsExactly(drama2005.getId(), comedy2005.getId());
+        assertThat(leaderboard.getTop(10, 1L, 2005))
+                .containsExactly(comedy2005.getId());
+        assertThat(leaderboard.getTop(10, 3L, null)).isEmpty();
+    }
+
+    @Test
+    public void shouldUpdateRankingIncrementally() {
+        leaderboard.like(comedy2005.getId());
+        leaderboard.like(comedy2005.getId());
+        leaderboard.like(comedy2005.getId());
+        leaderboard.removeLike(drama2005.getId());
+
+        assertThat(leaderboard.getTop(2, null, null))
+                .containsExactly(comedy2005.getId(), drama2005.getId());
+
+        leaderboard.remove(comedy2005.getId());
+
+        assertThat(leaderboard.getTop(10, 1L, null))
+                .containsExactly(comedy1950.getId());
+    }
+
+    @Test
+    public void shouldMoveFilmBetweenPartitionsOnUpdate() {
+        comedy2005.setReleaseDate(LocalDate.of(1950, 5, 5));
+        leaderboard.put(comedy2005);
+
+        List<Long> top1950 = leaderboard.getTop(10, null, 1950);
+
+        assertThat(top1950).containsExactly(comedy1950.getId(), comedy2005.getId());
+        assertThat(leaderboard.getTop(10, null, 2005)).containsExactly(drama2005.getId());
+    }
+}
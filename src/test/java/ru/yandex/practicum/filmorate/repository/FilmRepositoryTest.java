@@ -8,35 +8,57 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.Operation;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
 import ru.yandex.practicum.filmorate.repository.film.FilmStorage;
+import ru.yandex.practicum.filmorate.repository.genre.CachedGenreStorage;
 import ru.yandex.practicum.filmorate.repository.genre.GenreRepository;
 import ru.yandex.practicum.filmorate.repository.genre.GenreStorage;
 import ru.yandex.practicum.filmorate.repository.mappers.FilmRowMapper;
 import ru.yandex.practicum.filmorate.repository.mappers.GenreRowMapper;
 import ru.yandex.practicum.filmorate.repository.mappers.MpaRowMapper;
 import ru.yandex.practicum.filmorate.repository.mappers.UserRowMapper;
+import ru.yandex.practicum.filmorate.repository.mpa.CachedMpaStorage;
 import ru.yandex.practicum.filmorate.repository.mpa.MpaRepository;
 import ru.yandex.practicum.filmorate.repository.mpa.MpaStorage;
+import ru.yandex.practicum.filmorate.repository.user.FriendGraph;
 import ru.yandex.practicum.filmorate.repository.user.UserRepository;
 import ru.yandex.practicum.filmorate.repository.user.UserStorage;
 
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @JdbcTest
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 @Import({FilmRepository.class, FilmRowMapper.class,
-        MpaRepository.class, MpaRowMapper.class,
-        GenreRepository.class, GenreRowMapper.class,
-        UserRepository.class, UserRowMapper.class})
+        MpaRepository.class, MpaRowMapper.class, CachedMpaStorage.class,
+        GenreRepository.class, GenreRowMapper.class, CachedGenreStorage.class,
+        UserRepository.class, FriendGraph.class, UserRowMapper.class})
 public class FilmRepositoryTest {
     private final FilmStorage filmStorage;
     private final MpaStorage mpaStorage;
@@ -97,6 +119,34 @@ public class FilmRepositoryTest {
         initializeFilms();
     }
 
+    @Test
+    public void addAllShouldAssignIdsAndSaveGenres() {
+        jdbc.update("INSERT INTO directors(name) VALUES ('director')");
+        Director director = new Director();
+        director.setId(jdbc.queryForObject("SELECT MAX(director_id) FROM directors", Long.class));
+        director.setName("director");
+        List<Film> imported = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Film copy = new Film();
+            copy.setName("imported" + i);
+            copy.setDescription("description");
+            copy.setReleaseDate(LocalDate.of(2000 + i, 1, 1));
+            copy.setDuration(90);
+            copy.setMpa(mpaStorage.get(2));
+            copy.addGenre(genreStorage.get(i + 1));
+            copy.addDirector(director);
+            imported.add(copy);
+        }
+
+        filmStorage.addAll(imported);
+
+        for (Film expected : imported) {
+            assertThat(filmStorage.get(expected.getId()))
+                    .usingRecursiveComparison()
+                    .isEqualTo(expected);
+        }
+    }
+
     @Test
     public void shouldCorrectlyAddFilm() {
         Film film3 = filmStorage.get(film.getId());
@@ -165,14 +215,150 @@ public class FilmRepositoryTest {
     }
 
     @Test
-    public void getTopFilmsShouldReturn1MostLikelyFilm() {
-        List<Film> top = new ArrayList<>();
-        top.add(film);
+    public void likeCountShouldFollowRealLikeChanges() {
+        long filmId = film.getId();
+        String likeCountQuery = "SELECT like_count FROM films WHERE film_id = ?";
 
-        List<Film> topDb = filmStorage.getTopFilms(1);
+        assertTrue(filmStorage.like(filmId, user.getId()));
+        assertFalse(filmStorage.like(filmId, user.getId()));
+        assertTrue(filmStorage.like(filmId, user2.getId()));
+        assertEquals(2L, jdbc.queryForObject(likeCountQuery, Long.class, filmId));
 
-        assertThat(top)
-                .usingRecursiveComparison()
-                .isEqualTo(topDb);
+        assertTrue(filmStorage.removeLike(filmId, user.getId()));
+        assertFalse(filmStorage.removeLike(filmId, user.getId()));
+        assertEquals(1L, jdbc.queryForObject(likeCountQuery, Long.class, filmId));
+    }
+
+    @Test
+    public void setLikesShouldReportChangedRowsAndUpdateLikeCount() {
+        long filmId = film.getId();
+        filmStorage.like(filmId, user.getId());
+
+        boolean[] changed = filmStorage.setLikes(List.of(
+                new LikeChange(filmId, user.getId(), Operation.ADD),
+                new LikeChange(filmId, user2.getId(), Operation.ADD),
+                new LikeChange(film2.getId(), user.getId(), Operation.REMOVE)));
+
+        assertArrayEquals(new boolean[]{false, true, false}, changed);
+        assertEquals(2L, jdbc.queryForObject("SELECT like_count FROM films WHERE film_id = ?",
+                Long.class, filmId));
+        assertEquals(Set.of(filmId), filmStorage.getExistingIds(List.of(filmId, 9999L)));
+    }
+
+    @Test
+    public void repairShouldRecalculateLikeCount() {
+        filmStorage.like(film.getId(), user.getId());
+        jdbc.update("UPDATE films SET like_count = 10");
+
+        assertEquals(2, filmStorage.repairLikeCounts());
+        assertEquals(1L, jdbc.queryForObject("SELECT like_count FROM films WHERE film_id = ?",
+                Long.class, film.getId()));
+        assertEquals(0, filmStorage.repairLikeCounts());
+    }
+
+    // параллельное чтение идёт через отдельные соединения, поэтому данные теста должны быть зафиксированы
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void parallelGetShouldReturnSameFilmAsSequential() {
+        FilmRepository parallel = new FilmRepository(jdbc, new FilmRowMapper(), genreStorage, mpaStorage,
+                true, 5000);
+        try {
+            filmStorage.like(film.getId(), user.getId());
+            jdbc.update("INSERT INTO directors(name) VALUES ('director')");
+            Director director = new Director();
+            director.setId(jdbc.queryForObject("SELECT MAX(director_id) FROM directors", Long.class));
+            director.setName("director");
+            film.addDirector(director);
+            filmStorage.update(film);
+
+            assertThat(parallel.get(film.getId()))
+                    .usingRecursiveComparison()
+                    .isEqualTo(filmStorage.get(film.getId()));
+            assertThrows(NotFoundException.class, () -> parallel.get(-1));
+        } finally {
+            parallel.close();
+            jdbc.update("DELETE FROM films");
+            jdbc.update("DELETE FROM directors");
+            jdbc.update("DELETE FROM users");
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void parallelGetShouldFallBackToSequentialReadAfterTimeout() {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        FilmRowMapper filmRowMapper = new FilmRowMapper();
+        // медленно читается только первая строка: последовательное чтение после тайм-аута проходит быстро
+        RowMapper<Film> slowMapper = (rs, rowNum) -> {
+            running.incrementAndGet();
+            try {
+                Thread.sleep(calls.getAndIncrement() == 0 ? 500 : 0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+            return filmRowMapper.mapRow(rs, rowNum);
+        };
+        FilmRepository parallel = new FilmRepository(jdbc, slowMapper, genreStorage, mpaStorage, true, 50);
+        try {
+            assertEquals(film.getName(), parallel.get(film.getId()).getName());
+            assertEquals(2, calls.get());
+            assertEquals(0, running.get());
+        } finally {
+            parallel.close();
+            jdbc.update("DELETE FROM films");
+            jdbc.update("DELETE FROM users");
+        }
+    }
+
+    @Test
+    public void getAllShouldUseConstantNumberOfQueries() {
+        AtomicInteger statements = new AtomicInteger();
+        FilmStorage countingStorage = new FilmRepository(countingJdbc(statements), new FilmRowMapper(),
+                genreStorage, mpaStorage, false, 0);
+
+        countingStorage.getAll();
+        int statementsForTwoFilms = statements.getAndSet(0);
+
+        for (int i = 0; i < 20; i++) {
+            Film newFilm = new Film();
+            newFilm.setName("film" + i);
+            newFilm.setDescription("description" + i);
+            newFilm.setReleaseDate(LocalDate.of(2000 + i, 1, 1));
+            newFilm.setDuration(100);
+            newFilm.setMpa(mpaStorage.get(2));
+            newFilm.addGenre(genreStorage.get(1));
+            filmStorage.add(newFilm);
+            filmStorage.like(newFilm.getId(), user.getId());
+        }
+
+        List<Film> films = countingStorage.getAll();
+
+        assertEquals(22, films.size());
+        assertTrue(statementsForTwoFilms > 1);
+        assertEquals(statementsForTwoFilms, statements.get());
+    }
+
+    private JdbcTemplate countingJdbc(AtomicInteger statements) {
+        DataSource transactional = new TransactionAwareDataSourceProxy(jdbc.getDataSource());
+        DataSource counting = new DelegatingDataSource(transactional) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection connection = super.getConnection();
+                return (Connection) Proxy.newProxyInstance(
+                        getClass().getClassLoader(),
+                        new Class<?>[]{Connection.class},
+                        (proxy, method, args) -> {
+                            if (method.getName().startsWith("prepare")
+                                    || method.getName().equals("createStatement")) {
+                                statements.incrementAndGet();
+                            }
+                            return method.invoke(connection, args);
+                        });
+            }
+        };
+        return new JdbcTemplate(counting);
     }
 }
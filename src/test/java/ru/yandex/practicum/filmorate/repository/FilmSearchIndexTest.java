@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.repository.film.FilmSearchIndex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FilmSearchIndexTest {
+    private FilmSearchIndex index;
+
+    private static Director director(long id, String name) {
+        Director director = new Director();
+        director.setId(id);
+        director.setName(name);
+        return director;
+    }
+
+    private static Film film(long id, String name, Director... directors) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName(name);
+        for (Director director : directors) {
+            film.addDirector(director);
+        }
+        return film;
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new FilmSearchIndex(null);
+        Director nolan = director(1, "Кристофер Нолан");
+        Director villeneuve = director(2, "Denis Villeneuve");
+        index.putDirector(nolan);
+        index.putDirector(villeneuve);
+        index.putFilm(film(1, "Начало", nolan));
+        index.putFilm(film(2, "Интерстеллар", nolan));
+        index.putFilm(film(3, "Dune", villeneuve));
+        index.putFilm(film(4, "Крадущийся тигр"));
+    }
+
+    @Test
+    public void shouldMatchSubstringOfTitleIgnoringCase() {
+        assertThat(index.search("НАЧ", true, false)).containsExactly(1L);
+        assertThat(index.search("стелл", true, false)).containsExactly(2L);
+        assertThat(index.search("чал", true, false)).containsExactly(1L);
+        assertThat(index.search("алоч", true, false)).isEmpty();
+    }
+
+    @Test
+    public void shortQueryShouldFallBackToScan() {
+        assertThat(index.search("ду", true, false)).containsExactlyInAnyOrder(4L);
+        assertThat(index.search("", true, false)).containsExactlyInAnyOrder(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    public void shouldSearchByDirectorAndTitle() {
+        assertThat(index.search("нолан", false, true)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.search("dune", false, true)).isEmpty();
+        assertThat(index.search("dEn", true, true)).containsExactlyInAnyOrder(3L);
+    }
+
+    @Test
+    public void shouldFollowFilmAndDirectorChanges() {
+        index.putFilm(film(1, "Помни"));
+        assertThat(index.search("нолан", false, true)).containsExactly(2L);
+        assertThat(index.search("начало", true, false)).isEmpty();
+
+        index.putDirector(director(1, "Нолан К."));
+        assertThat(index.search("кристофер", false, true)).isEmpty();
+        assertThat(index.search("нолан к", false, true)).containsExactly(2L);
+
+        index.removeDirector(1);
+        assertThat(index.search("нолан", false, true)).isEmpty();
+
+        index.removeFilm(3);
+        assertThat(index.search("villeneuve", false, true)).isEmpty();
+    }
+}
@@ -0,0 +1,165 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.repository.event.EventRepository;
+import ru.yandex.practicum.filmorate.repository.event.FriendFeedRepository;
+import ru.yandex.practicum.filmorate.repository.mappers.EventRowMapper;
+import ru.yandex.practicum.filmorate.repository.user.FriendGraph;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({EventRepository.class, EventRowMapper.class})
+public class FriendFeedRepositoryTest {
+    private final EventRepository eventRepository;
+    private final EventRowMapper eventRowMapper;
+    private final JdbcTemplate jdbc;
+    private long reader;
+    private long friend;
+    private long hub;
+    private long other;
+    private FriendGraph friendGraph;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("DELETE FROM events");
+        jdbc.update("DELETE FROM users");
+        reader = addUser("reader");
+        friend = addUser("friend");
+        hub = addUser("hub");
+        other = addUser("other");
+        jdbc.update("INSERT INTO friends(user_id, friend_id) VALUES (?, ?), (?, ?), (?, ?)",
+                reader, friend, reader, hub, other, hub);
+        friendGraph = new FriendGraph(jdbc);
+        friendGraph.rebuild();
+    }
+
+    private long addUser(String login) {
+        jdbc.update("INSERT INTO users(email, login, name, birthday) VALUES (?, ?, ?, '2000-01-01')",
+                login + "@mail.ru", login, login);
+        return jdbc.queryForObject("SELECT MAX(user_id) FROM users", Long.class);
+    }
+
+    // hub-followers = 1: у hub двое подписчиков, его события не раскладываются, а дочитываются
+    private FriendFeedRepository feed(int timelineSize) {
+        return new FriendFeedRepository(jdbc, eventRowMapper, friendGraph, 1, timelineSize);
+    }
+
+    private Event addEvent(FriendFeedRepository feed, long userId, long timestamp, long entityId) {
+        Event event = new Event(userId, EventType.LIKE, Operation.ADD, entityId);
+        event.setTimestamp(timestamp);
+        eventRepository.addAll(List.of(event));
+        feed.fanOut(List.of(event));
+        return event;
+    }
+
+    private List<Long> entityIds(List<Event> events) {
+        return events.stream().map(Event::getEntityId).toList();
+    }
+
+    @Test
+    public void feedShouldMergeFannedOutAndHubEvents() {
+        FriendFeedRepository feed = feed(100);
+        addEvent(feed, friend, 100, 1);
+        addEvent(feed, hub, 200, 2);
+        addEvent(feed, reader, 250, 3);
+        addEvent(feed, friend, 300, 4);
+
+        assertEquals(List.of(1L, 2L, 4L), entityIds(feed.getFeed(reader, 0, 0, 10)));
+        // события hub в ленту не записывались
+        assertEquals(2, jdbc.queryForObject("SELECT COUNT(*) FROM friend_feed WHERE user_id = ?",
+                Integer.class, reader));
+        // вторая страница после курсора первой
+        List<Event> first = feed.getFeed(reader, 0, 0, 2);
+        Event last = first.get(1);
+        assertEquals(List.of(4L), entityIds(feed.getFeed(reader, last.getTimestamp(), last.getEventId(), 2)));
+    }
+
+    @Test
+    public void timelineShouldKeepOnlyLatestEvents() {
+        FriendFeedRepository feed = feed(4);
+        for (int i = 1; i <= 9; i++) {
+            addEvent(feed, friend, i * 10L, i);
+        }
+
+        List<Event> events = feed.getFeed(reader, 0, 0, 10);
+
+        assertEquals(4, jdbc.queryForObject("SELECT COUNT(*) FROM friend_feed WHERE user_id = ?",
+                Integer.class, reader));
+        assertEquals(List.of(6L, 7L, 8L, 9L), entityIds(events));
+    }
+
+    @Test
+    public void followAndUnfollowShouldUpdateTimeline() {
+        FriendFeedRepository feed = feed(100);
+        long stranger = addUser("stranger");
+        addEvent(feed, stranger, 100, 1);
+        addEvent(feed, stranger, 200, 2);
+
+        jdbc.update("INSERT INTO friends(user_id, friend_id) VALUES (?, ?)", reader, stranger);
+        friendGraph.addFriend(reader, stranger);
+        feed.follow(reader, stranger);
+        assertEquals(List.of(1L, 2L), entityIds(feed.getFeed(reader, 0, 0, 10)));
+
+        jdbc.update("DELETE FROM friends WHERE user_id = ? AND friend_id = ?", reader, stranger);
+        friendGraph.removeFriend(reader, stranger);
+        feed.unfollow(reader, stranger);
+        assertEquals(List.of(), feed.getFeed(reader, 0, 0, 10));
+    }
+
+    @Test
+    public void hubEventsShouldBeLimitedToTimelineSize() {
+        FriendFeedRepository feed = feed(4);
+        for (int i = 1; i <= 9; i++) {
+            addEvent(feed, hub, i * 10L, i);
+        }
+
+        assertEquals(List.of(6L, 7L, 8L, 9L), entityIds(feed.getFeed(reader, 0, 0, 10)));
+        Event last = feed.getFeed(reader, 0, 0, 2).get(1);
+        assertEquals(List.of(8L, 9L), entityIds(feed.getFeed(reader, last.getTimestamp(), last.getEventId(), 10)));
+    }
+
+    @Test
+    public void authorBecomingHubShouldKeepEarlierEventsInFeed() {
+        FriendFeedRepository feed = feed(100);
+        addEvent(feed, friend, 100, 1);
+
+        jdbc.update("INSERT INTO friends(user_id, friend_id) VALUES (?, ?)", other, friend);
+        friendGraph.addFriend(other, friend);
+        feed.follow(other, friend);
+        addEvent(feed, friend, 200, 2);
+
+        assertEquals(List.of(1L, 2L), entityIds(feed.getFeed(reader, 0, 0, 10)));
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM friend_feed WHERE user_id = ?",
+                Integer.class, reader));
+    }
+
+    @Test
+    public void authorNoLongerHubShouldFanOutEventsWrittenAsHub() {
+        FriendFeedRepository feed = feed(100);
+        addEvent(feed, hub, 100, 1);
+
+        jdbc.update("DELETE FROM friends WHERE user_id = ? AND friend_id = ?", other, hub);
+        friendGraph.removeFriend(other, hub);
+        feed.unfollow(other, hub);
+        addEvent(feed, hub, 200, 2);
+
+        assertEquals(List.of(1L, 2L), entityIds(feed.getFeed(reader, 0, 0, 10)));
+        assertEquals(2, jdbc.queryForObject("SELECT COUNT(*) FROM friend_feed WHERE user_id = ?",
+                Integer.class, reader));
+    }
+}
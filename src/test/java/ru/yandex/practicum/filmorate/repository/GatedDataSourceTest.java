@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class GatedDataSourceTest {
+    private SimpleMeterRegistry registry;
+    private GatedDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        dataSource = new GatedDataSource(new DriverManagerDataSource("jdbc:h2:mem:gate", "sa", ""), 1, 200);
+        dataSource.bindTo(registry);
+    }
+
+    private double gauge(String name) {
+        return registry.get(name).gauge().value();
+    }
+
+    @Test
+    void connectionShouldWaitForClosedOne() throws Exception {
+        Connection first = dataSource.getConnection();
+        CompletableFuture<Connection> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        assertFalse(second.isDone());
+        assertEquals(1, gauge("filmorate.jdbc.gate.queued"));
+
+        first.close();
+        first.close();
+        second.get(1, TimeUnit.SECONDS).close();
+
+        assertEquals(0, gauge("filmorate.jdbc.gate.in-use"));
+        assertEquals(2, registry.get("filmorate.jdbc.gate.wait").timer().count());
+    }
+
+    @Test
+    void waitingShouldEndWithErrorAfterTimeout() throws Exception {
+        try (Connection ignored = dataSource.getConnection()) {
+            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        }
+        dataSource.getConnection().close();
+    }
+}
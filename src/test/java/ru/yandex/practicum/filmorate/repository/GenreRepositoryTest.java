@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.repository.genre.GenreRepository;
 import ru.yandex.practicum.filmorate.repository.genre.GenreStorage;
@@ -15,6 +16,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @JdbcTest
 @AutoConfigureTestDatabase
@@ -76,5 +79,13 @@ public class GenreRepositoryTest {
                 .usingRecursiveComparison()
                 .isEqualTo(genresDb);
     }
-}
 
+    @Test
+    public void validateShouldRejectUnknownGenre() {
+        genreStorage.validate(List.of(1L, 2L, 6L));
+
+        NotFoundException e = assertThrows(NotFoundException.class,
+                () -> genreStorage.validate(List.of(1L, 100L)));
+        assertEquals("Жанр 100 не найден", e.getMessage());
+    }
+}
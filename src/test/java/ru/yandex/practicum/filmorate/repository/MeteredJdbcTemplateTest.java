@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.mappers.UserRowMapper;
+import ru.yandex.practicum.filmorate.repository.metrics.MeteredJdbcTemplate;
+import ru.yandex.practicum.filmorate.repository.metrics.QueryCatalog;
+import ru.yandex.practicum.filmorate.repository.metrics.QueryCounter;
+import ru.yandex.practicum.filmorate.repository.user.FriendGraph;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class MeteredJdbcTemplateTest {
+    private final DataSource dataSource;
+    private final PlatformTransactionManager transactionManager;
+    private SimpleMeterRegistry registry;
+    private QueryCounter counter;
+    private MeteredJdbcTemplate jdbc;
+    private UserRepository userRepository;
+    private FriendGraph friendGraph;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate plainJdbc = new JdbcTemplate(dataSource);
+        plainJdbc.update("DELETE FROM friends");
+        plainJdbc.update("DELETE FROM users");
+        QueryCatalog catalog = new QueryCatalog();
+        catalog.register(UserRepository.class);
+        catalog.register(FriendGraph.class);
+        registry = new SimpleMeterRegistry();
+        counter = new QueryCounter();
+        jdbc = new MeteredJdbcTemplate(dataSource, catalog, counter, registry);
+        friendGraph = new FriendGraph(jdbc);
+        friendGraph.rebuild();
+        userRepository = new UserRepository(jdbc, new UserRowMapper(), friendGraph);
+    }
+
+    private User newUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.ru");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+
+    private long statements(String query) {
+        return registry.get("filmorate.jdbc.statements").tag("query", query).timer().count();
+    }
+
+    private double rows(String query) {
+        return registry.get("filmorate.jdbc.rows").tag("query", query).summary().totalAmount();
+    }
+
+    @Test
+    void everyStatementShouldBeMeasuredOnceByQueryName() {
+        counter.start();
+        User first = userRepository.add(newUser("first"));
+        User second = newUser("second");
+        second.addFriend(first.getId());
+        userRepository.add(second);
+        friendGraph.setFriends(second.getId(), second.getFriends());
+        userRepository.get(second.getId());
+        userRepository.getAll();
+        userRepository.getFriends(second.getId());
+        userRepository.exists(first.getId());
+        int queries = counter.stop();
+
+        assertEquals(2, statements("INSERT_QUERY"));
+        assertEquals(1, statements("INSERT_FRIENDS_QUERY"));
+        assertEquals(1, statements("FIND_BY_ID_QUERY"));
+        assertEquals(1, statements("FIND_ALL_QUERY"));
+        assertEquals(1, statements("FIND_BY_IDS_QUERY"));
+        assertEquals(1, statements("IS_EXIST_QUERY"));
+        assertEquals(7, queries);
+
+        assertEquals(2, rows("FIND_ALL_QUERY"));
+        assertEquals(1, rows("INSERT_FRIENDS_QUERY"));
+        // списки друзей берутся из графа в памяти, запросом читаются только строки друзей
+        assertEquals(1, rows("FIND_BY_IDS_QUERY"));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void writesShouldBeCommittedOncePerTransaction() {
+        long commits = counter.commits();
+        try {
+            userRepository.add(newUser("first"));
+            assertEquals(commits + 1, counter.commits());
+
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                userRepository.add(newUser("second"));
+                userRepository.add(newUser("third"));
+                userRepository.getAll();
+            });
+            assertEquals(commits + 2, counter.commits());
+        } finally {
+            new JdbcTemplate(dataSource).update("DELETE FROM users");
+        }
+    }
+
+    @Test
+    void unregisteredStatementShouldBeTaggedUnknown() {
+        userRepository.add(newUser("first"));
+        jdbc.query("SELECT user_id FROM users", rs -> {
+        });
+
+        assertEquals(1, statements(QueryCatalog.UNKNOWN.query()));
+        assertEquals(1, rows(QueryCatalog.UNKNOWN.query()));
+    }
+}
@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.repository.director.DirectorRepository;
+import ru.yandex.practicum.filmorate.repository.event.EventRepository;
+import ru.yandex.practicum.filmorate.repository.event.FriendFeedRepository;
+import ru.yandex.practicum.filmorate.repository.film.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.repository.film.LikeIndex;
+import ru.yandex.practicum.filmorate.repository.genre.GenreRepository;
+import ru.yandex.practicum.filmorate.repository.mpa.MpaRepository;
+import ru.yandex.practicum.filmorate.repository.review.ReviewRepository;
+import ru.yandex.practicum.filmorate.repository.user.FriendGraph;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Прогоняет EXPLAIN для каждой SQL-константы хранилищ и падает, если в плане появилось
+// полное сканирование таблицы, не внесённое в список ожидаемых. Полным считается и проход
+// по индексу без условия, кроме чтения первых строк ведущей таблицы в порядке индекса (ORDER BY ... LIMIT)
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class QueryPlanTest {
+    private static final List<Class<?>> REPOSITORIES = List.of(FilmRepository.class, UserRepository.class,
+            ReviewRepository.class, DirectorRepository.class, EventRepository.class, FriendFeedRepository.class,
+            GenreRepository.class,
+            MpaRepository.class, FilmLeaderboard.class, FilmSearchIndex.class, LikeIndex.class,
+            FriendGraph.class);
+
+    // запросы, которым полный просмотр таблицы нужен по смыслу: выгрузка всей таблицы
+    // и пересчёт счётчиков
+    private static final Set<String> FULL_SCAN_EXPECTED = Set.of(
+            "FilmRepository.FIND_ALL_QUERY",
+            "FilmRepository.REPAIR_LIKE_COUNT_QUERY",
+            "UserRepository.FIND_ALL_QUERY",
+            "DirectorRepository.FIND_ALL_QUERY",
+            "GenreRepository.FIND_ALL_QUERY",
+            "MpaRepository.FIND_ALL_QUERY",
+            "FilmLeaderboard.LOAD_FILMS_QUERY",
+            "FilmLeaderboard.LOAD_GENRES_QUERY",
+            "FilmSearchIndex.LOAD_FILMS_QUERY",
+            "FilmSearchIndex.LOAD_DIRECTORS_QUERY",
+            "FilmSearchIndex.LOAD_FILM_DIRECTORS_QUERY",
+            "LikeIndex.LOAD_QUERY",
+            "FriendGraph.LOAD_QUERY"
+    );
+
+    // H2 пишет в плане /* PUBLIC.ИНДЕКС: условие */, у полного прохода условия нет
+    private static final Pattern FULL_SCAN = Pattern.compile("/\\* PUBLIC\\.[\\w.]+ \\*/");
+
+    private final JdbcTemplate jdbc;
+
+    @Test
+    public void queriesShouldNotScanWholeTables() throws IllegalAccessException {
+        List<String> checked = new ArrayList<>();
+        List<String> scans = new ArrayList<>();
+        for (Class<?> repository : REPOSITORIES) {
+            for (Field field : repository.getDeclaredFields()) {
+                String sql = sqlConstant(field);
+                if (sql == null) {
+                    continue;
+                }
+                String name = repository.getSimpleName() + "." + field.getName();
+                checked.add(name);
+                String plan = explain(sql);
+                if (isFullScan(plan) && !FULL_SCAN_EXPECTED.contains(name)) {
+                    scans.add(name + ":\n" + plan);
+                }
+            }
+        }
+
+        assertTrue(checked.containsAll(FULL_SCAN_EXPECTED), "Список ожидаемых сканирований устарел");
+        assertEquals(List.of(), scans, "Запросы читают таблицу целиком");
+    }
+
+    // Проход по индексу без условия допустим только у ведущей таблицы внешнего запроса (строка после FROM
+    // без отступа), когда её индекс уже отдаёт строки в порядке ORDER BY (/* index sorted */ в конце плана)
+    // и читаются первые строки (FETCH FIRST). Проходы по остальным таблицам и в подзапросах не прощаются
+    private static boolean isFullScan(String plan) {
+        String[] lines = plan.split("\n");
+        int sortedScanLine = -1;
+        if (plan.strip().endsWith("/* index sorted */")
+                && Arrays.stream(lines).anyMatch(line -> line.startsWith("FETCH FIRST"))) {
+            for (int i = 0; i + 1 < lines.length; i++) {
+                if (lines[i].startsWith("FROM ")) {
+                    sortedScanLine = i + 1;
+                    break;
+                }
+            }
+        }
+        for (int i = 0; i < lines.length; i++) {
+            if (FULL_SCAN.matcher(lines[i]).find()
+                    && (i != sortedScanLine || lines[i].contains(".tableScan"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void sortedLimitShouldNotHideScanOfOtherTables() {
+        assertFalse(isFullScan(explain("SELECT * FROM reviews ORDER BY useful DESC, review_id LIMIT 10")));
+        assertTrue(isFullScan(explain("SELECT r.* FROM reviews AS r JOIN films AS f ON f.name = r.content " +
+                "ORDER BY r.useful DESC, r.review_id LIMIT 10")));
+        assertTrue(isFullScan(explain("SELECT * FROM reviews WHERE film_id IN (SELECT film_id FROM films " +
+                "WHERE name = ?) ORDER BY useful DESC, review_id LIMIT 10")));
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbc.queryForList("EXPLAIN " + sql, String.class));
+    }
+
+    private static String sqlConstant(Field field) throws IllegalAccessException {
+        int modifiers = field.getModifiers();
+        if (field.getType() != String.class || !Modifier.isStatic(modifiers) || !Modifier.isFinal(modifiers)) {
+            return null;
+        }
+        field.setAccessible(true);
+        String sql = ((String) field.get(null)).strip();
+        String command = sql.split("\\s+", 2)[0].toUpperCase(Locale.ROOT);
+        return Set.of("SELECT", "UPDATE", "DELETE", "MERGE", "INSERT").contains(command) ? sql : null;
+    }
+}
@@ -18,6 +18,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -105,4 +107,34 @@ public class ReviewRepositoryTest {
                 .usingRecursiveComparison()
                 .isEqualTo(reviewStorage.getMany(2, 2));
     }
+
+    @Test
+    public void votesShouldBeCountedOncePerUser() {
+        jdbc.update("INSERT INTO users(email, login, name, birthday) VALUES ('a@mail.ru', 'a', 'a', '2000-01-01')");
+        jdbc.update("INSERT INTO users(email, login, name, birthday) VALUES ('b@mail.ru', 'b', 'b', '2000-01-01')");
+        List<Long> users = jdbc.queryForList("SELECT user_id FROM users ORDER BY user_id DESC LIMIT 2", Long.class);
+        long reviewId = review.getReviewId();
+
+        assertTrue(reviewStorage.vote(reviewId, users.get(0), ReviewStorage.LIKE));
+        assertFalse(reviewStorage.vote(reviewId, users.get(0), ReviewStorage.LIKE));
+        assertTrue(reviewStorage.vote(reviewId, users.get(1), ReviewStorage.LIKE));
+        assertEquals(2, reviewStorage.get(reviewId).getUseful());
+
+        // смена оценки меняет полезность сразу на 2
+        assertTrue(reviewStorage.vote(reviewId, users.get(1), ReviewStorage.DISLIKE));
+        assertEquals(0, reviewStorage.get(reviewId).getUseful());
+
+        assertFalse(reviewStorage.removeVote(reviewId, users.get(1), ReviewStorage.LIKE));
+        assertTrue(reviewStorage.removeVote(reviewId, users.get(1), ReviewStorage.DISLIKE));
+        assertEquals(1, reviewStorage.get(reviewId).getUseful());
+
+        review.setContent("Пересмотрел");
+        reviewStorage.update(review);
+        assertEquals(1, reviewStorage.get(reviewId).getUseful());
+    }
+
+    @Test
+    public void voteForUnknownReviewShouldFail() {
+        assertThrows(NotFoundException.class, () -> reviewStorage.vote(-1, 1, ReviewStorage.LIKE));
+    }
 }
@@ -10,6 +10,7 @@ import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.repository.mappers.UserRowMapper;
+import ru.yandex.practicum.filmorate.repository.user.FriendGraph;
 import ru.yandex.practicum.filmorate.repository.user.UserRepository;
 import ru.yandex.practicum.filmorate.repository.user.UserStorage;
 
@@ -24,9 +25,10 @@ import static org.junit.jupiter.api.Assertions.*;
 @JdbcTest
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@Import({UserRepository.class, UserRowMapper.class})
+@Import({UserRepository.class, FriendGraph.class, UserRowMapper.class})
 public class UserRepositoryTest {
     private final UserStorage userStorage;
+    private final FriendGraph friendGraph;
     private final JdbcTemplate jdbc;
     private User user;
     private User user2;
@@ -51,6 +53,8 @@ public class UserRepositoryTest {
         list = new ArrayList<>();
         list.add(user);
         list.add(user2);
+        // граф друзей обновляет сервис, здесь он перечитывается из таблицы friends текущей транзакции
+        friendGraph.rebuild();
     }
 
     @BeforeEach
@@ -113,6 +117,7 @@ public class UserRepositoryTest {
     public void shouldAddFriend() {
         user.addFriend(user2.getId());
         userStorage.addFriend(user.getId(), user2.getId());
+        friendGraph.rebuild();
 
         User user3 = userStorage.get(user.getId());
         assertThat(user)
@@ -126,6 +131,7 @@ public class UserRepositoryTest {
         long user2Id = user2.getId();
         user2.removeFriend(userId);
         userStorage.removeFriend(user2Id, userId);
+        friendGraph.rebuild();
 
         User user3 = userStorage.get(userId);
         assertThat(user)
@@ -162,6 +168,7 @@ public class UserRepositoryTest {
         user4.addFriend(user.getId());
         user4.addFriend(user3.getId());
         userStorage.add(user4);
+        friendGraph.rebuild();
 
         List<User> friends = userStorage.getCommonFriends(user3.getId(), user4.getId());
 
@@ -171,4 +178,37 @@ public class UserRepositoryTest {
                 .usingRecursiveComparison()
                 .isEqualTo(friends.getFirst());
     }
+
+    @Test
+    public void deletedUserShouldDisappearFromFriendLists() {
+        User user3 = new User();
+        user3.setEmail("mail@mailmail.ru");
+        user3.setLogin("login123456");
+        user3.setName("someName6");
+        user3.setBirthday(LocalDate.of(1990, 10, 12));
+        user3.addFriend(user.getId());
+        userStorage.add(user3);
+
+        userStorage.delete(user.getId());
+        friendGraph.rebuild();
+
+        assertTrue(userStorage.getFriends(user2.getId()).isEmpty());
+        assertTrue(userStorage.getCommonFriends(user2.getId(), user3.getId()).isEmpty());
+        assertTrue(userStorage.get(user3.getId()).getFriends().isEmpty());
+    }
+
+    @Test
+    public void shouldReturnPagesOrderedById() {
+        List<User> firstPage = userStorage.getPage(0, 1);
+        List<User> secondPage = userStorage.getPage(firstPage.getLast().getId(), 1);
+        List<User> lastPage = userStorage.getPage(secondPage.getLast().getId(), 1);
+
+        assertThat(firstPage)
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(user));
+        assertThat(secondPage)
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(user2));
+        assertTrue(lastPage.isEmpty());
+    }
 }
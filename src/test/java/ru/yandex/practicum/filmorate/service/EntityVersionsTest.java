@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class EntityVersionsTest {
+    private final EntityVersions versions = new EntityVersions();
+
+    @Test
+    public void filmStampShouldChangeOnlyWithFilmOrDirectors() {
+        String first = versions.film(1);
+        String other = versions.film(2);
+
+        versions.filmChanged(2);
+        assertEquals(first, versions.film(1));
+        assertNotEquals(other, versions.film(2));
+
+        // имена режиссёров входят в ответ по фильму
+        versions.directorsChanged();
+        assertNotEquals(first, versions.film(1));
+    }
+
+    @Test
+    public void referenceDataStampsShouldNotChange() {
+        String genres = versions.genres();
+        String mpa = versions.mpa();
+
+        versions.filmChanged(1);
+        versions.directorsChanged();
+
+        assertEquals(genres, versions.genres());
+        assertEquals(mpa, versions.mpa());
+    }
+}
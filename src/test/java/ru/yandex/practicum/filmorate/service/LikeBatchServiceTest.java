@@ -0,0 +1,200 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeBatchReport;
+import ru.yandex.practicum.filmorate.model.LikeBatchReport.Outcome;
+import ru.yandex.practicum.filmorate.model.LikeBatchReport.Status;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.event.EventRepository;
+import ru.yandex.practicum.filmorate.repository.film.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.LikeIndex;
+import ru.yandex.practicum.filmorate.repository.genre.CachedGenreStorage;
+import ru.yandex.practicum.filmorate.repository.genre.GenreRepository;
+import ru.yandex.practicum.filmorate.repository.mappers.EventRowMapper;
+import ru.yandex.practicum.filmorate.repository.mappers.FilmRowMapper;
+import ru.yandex.practicum.filmorate.repository.mappers.GenreRowMapper;
+import ru.yandex.practicum.filmorate.repository.mappers.MpaRowMapper;
+import ru.yandex.practicum.filmorate.repository.mappers.UserRowMapper;
+import ru.yandex.practicum.filmorate.repository.mpa.CachedMpaStorage;
+import ru.yandex.practicum.filmorate.repository.mpa.MpaRepository;
+import ru.yandex.practicum.filmorate.repository.mpa.MpaStorage;
+import ru.yandex.practicum.filmorate.repository.user.FriendGraph;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({FilmRepository.class, FilmRowMapper.class, FilmLeaderboard.class, LikeIndex.class,
+        MpaRepository.class, MpaRowMapper.class, CachedMpaStorage.class,
+        GenreRepository.class, GenreRowMapper.class, CachedGenreStorage.class,
+        UserRepository.class, FriendGraph.class, UserRowMapper.class,
+        EventRepository.class, EventRowMapper.class})
+public class LikeBatchServiceTest {
+    @Autowired
+    private FilmRepository filmStorage;
+    @Autowired
+    private UserRepository userStorage;
+    @Autowired
+    private EventRepository eventStorage;
+    @Autowired
+    private FilmLeaderboard leaderboard;
+    @Autowired
+    private LikeIndex likeIndex;
+    @Autowired
+    private MpaStorage mpaStorage;
+    @Autowired
+    private JdbcTemplate jdbc;
+    private EntityVersions versions;
+    private LikeBatchService likeBatchService;
+    private long film;
+    private long likedFilm;
+    private long user;
+    private long fan;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("DELETE FROM films");
+        jdbc.update("DELETE FROM users");
+        jdbc.update("DELETE FROM events");
+        film = createFilm("film");
+        likedFilm = createFilm("likedFilm");
+        user = createUser("user");
+        fan = createUser("fan");
+        filmStorage.like(likedFilm, fan);
+        leaderboard.rebuild();
+        likeIndex.rebuild();
+        versions = new EntityVersions();
+        likeBatchService = new LikeBatchService(filmStorage, userStorage, eventStorage, leaderboard, likeIndex,
+                versions, 100);
+    }
+
+    private long createFilm(String name) {
+        Film newFilm = new Film();
+        newFilm.setName(name);
+        newFilm.setDescription("description");
+        newFilm.setReleaseDate(LocalDate.of(2000, 1, 1));
+        newFilm.setDuration(100);
+        newFilm.setMpa(mpaStorage.get(1));
+        return filmStorage.add(newFilm).getId();
+    }
+
+    private long createUser(String login) {
+        User newUser = new User();
+        newUser.setEmail(login + "@mail.ru");
+        newUser.setLogin(login);
+        newUser.setName(login);
+        newUser.setBirthday(LocalDate.of(2000, 1, 1));
+        return userStorage.add(newUser).getId();
+    }
+
+    private static LikeChange add(long filmId, long userId) {
+        return new LikeChange(filmId, userId, Operation.ADD);
+    }
+
+    private static LikeChange remove(long filmId, long userId) {
+        return new LikeChange(filmId, userId, Operation.REMOVE);
+    }
+
+    private static List<Status> statuses(LikeBatchReport report) {
+        return report.outcomes().stream().map(Outcome::status).toList();
+    }
+
+    private long likeCount(long filmId) {
+        return jdbc.queryForObject("SELECT like_count FROM films WHERE film_id = ?", Long.class, filmId);
+    }
+
+    private int events(long userId) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM events WHERE user_id = ?", Integer.class, userId);
+    }
+
+    @Test
+    public void replayWithoutLikeShouldApplyEveryOperation() {
+        String version = versions.film(film);
+
+        LikeBatchReport report = likeBatchService.apply(List.of(add(film, user), remove(film, user),
+                add(film, user), add(film, fan)));
+
+        assertEquals(List.of(Status.APPLIED, Status.APPLIED, Status.APPLIED, Status.APPLIED), statuses(report));
+        assertEquals(4, report.applied());
+        assertEquals(2, likeCount(film));
+        assertThat(likeIndex.getFilmUsers(film).toArray()).containsExactly(user, fan);
+        assertThat(leaderboard.getTop(10, null, null)).containsExactly(film, likedFilm);
+        assertNotEquals(version, versions.film(film));
+        assertEquals(3, events(user));
+        assertEquals(1, events(fan));
+    }
+
+    @Test
+    public void replayOverExistingLikeShouldLeaveItInPlace() {
+        String version = versions.film(likedFilm);
+
+        LikeBatchReport report = likeBatchService.apply(List.of(add(likedFilm, fan), remove(likedFilm, fan),
+                add(likedFilm, fan)));
+
+        assertEquals(List.of(Status.UNCHANGED, Status.APPLIED, Status.APPLIED), statuses(report));
+        assertEquals(2, report.applied());
+        assertEquals(1, likeCount(likedFilm));
+        assertThat(likeIndex.getFilmUsers(likedFilm).toArray()).containsExactly(fan);
+        assertThat(leaderboard.getTop(10, null, null)).containsExactly(likedFilm, film);
+        // итоговые лайки не изменились, поэтому версия фильма прежняя
+        assertEquals(version, versions.film(likedFilm));
+        assertEquals(3, events(fan));
+    }
+
+    @Test
+    public void removingExistingLikeShouldUpdateIndexes() {
+        LikeBatchReport report = likeBatchService.apply(List.of(remove(likedFilm, fan), remove(likedFilm, fan)));
+
+        assertEquals(List.of(Status.APPLIED, Status.UNCHANGED), statuses(report));
+        assertEquals(0, likeCount(likedFilm));
+        assertThat(likeIndex.getFilmUsers(likedFilm).toArray()).isEmpty();
+        assertThat(leaderboard.getTop(10, null, null)).containsExactly(film, likedFilm);
+    }
+
+    @Test
+    public void duplicatePairsShouldBeAppliedOnce() {
+        LikeBatchReport report = likeBatchService.apply(List.of(add(film, user), add(film, user), add(film, user)));
+
+        assertEquals(List.of(Status.APPLIED, Status.UNCHANGED, Status.UNCHANGED), statuses(report));
+        assertEquals(1, report.applied());
+        assertEquals(1, likeCount(film));
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM likes WHERE film_id = ?", Integer.class, film));
+    }
+
+    @Test
+    public void invalidOperationsShouldBeRejectedWithoutFailingBatch() {
+        LikeBatchReport report = likeBatchService.apply(Arrays.asList(
+                null,
+                new LikeChange(null, user, Operation.ADD),
+                new LikeChange(film, user, Operation.UPDATE),
+                add(film, -1),
+                add(-1, user),
+                add(film, user)));
+
+        assertEquals(List.of(Status.REJECTED, Status.REJECTED, Status.REJECTED, Status.REJECTED, Status.REJECTED,
+                Status.APPLIED), statuses(report));
+        assertEquals(6, report.total());
+        assertEquals(1, report.applied());
+        assertEquals("Пользователь -1 не найден", report.outcomes().get(3).message());
+        assertEquals("Фильм -1 не найден", report.outcomes().get(4).message());
+        assertEquals(1, likeCount(film));
+        assertEquals(1, events(user));
+    }
+}
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.repository.film.LikeIndex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RecommendationServiceTest {
+    private LikeIndex likeIndex;
+    private RecommendationService recommendationService;
+
+    @BeforeEach
+    void setUp() {
+        likeIndex = new LikeIndex(null);
+        recommendationService = new RecommendationService(likeIndex, 5, 50);
+    }
+
+    @Test
+    public void shouldRecommendFilmsOfSimilarUsers() {
+        likeIndex.like(1, 1);
+        likeIndex.like(2, 1);
+        likeIndex.like(1, 2);
+        likeIndex.like(2, 2);
+        likeIndex.like(3, 2);
+        likeIndex.like(1, 3);
+        likeIndex.like(4, 3);
+        likeIndex.like(5, 3);
+        likeIndex.like(6, 3);
+
+        // пользователь 2 похож сильнее (2/3), чем пользователь 3 (1/4)
+        assertThat(recommendationService.recommend(1)).containsExactly(3L, 4L, 5L, 6L);
+    }
+
+    @Test
+    public void shouldReturnEmptyListWithoutCommonLikes() {
+        likeIndex.like(1, 1);
+        likeIndex.like(2, 2);
+
+        assertThat(recommendationService.recommend(1)).isEmpty();
+        assertThat(recommendationService.recommend(3)).isEmpty();
+    }
+
+    @Test
+    public void shouldFollowLikeChanges() {
+        likeIndex.like(1, 1);
+        likeIndex.like(1, 2);
+        likeIndex.like(2, 2);
+        assertThat(recommendationService.recommend(1)).containsExactly(2L);
+
+        likeIndex.like(2, 1);
+        assertThat(recommendationService.recommend(1)).isEmpty();
+
+        likeIndex.removeLike(2, 1);
+        likeIndex.removeUser(2);
+        assertThat(recommendationService.recommend(1)).isEmpty();
+    }
+}
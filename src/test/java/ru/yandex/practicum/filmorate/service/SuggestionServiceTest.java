@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.repository.film.LikeIndex;
+import ru.yandex.practicum.filmorate.repository.user.FriendGraph;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SuggestionServiceTest {
+    private FriendGraph friendGraph;
+    private LikeIndex likeIndex;
+
+    @BeforeEach
+    void setUp() {
+        friendGraph = new FriendGraph(null);
+        likeIndex = new LikeIndex(null);
+        friendGraph.addFriend(1, 2);
+        friendGraph.addFriend(1, 3);
+        friendGraph.addFriend(2, 4);
+        friendGraph.addFriend(3, 4);
+        friendGraph.addFriend(2, 5);
+        friendGraph.addFriend(3, 6);
+        friendGraph.addFriend(2, 3);
+    }
+
+    @Test
+    public void shouldRankFriendsOfFriendsByMutualFriends() {
+        SuggestionService service = new SuggestionService(friendGraph, likeIndex, 10, 1000, 0.5);
+
+        // 4 - друг обоих друзей, 5 и 6 - по одному; друг 3 уже в друзьях и не предлагается
+        assertThat(service.suggest(1)).containsExactly(4L, 5L, 6L);
+        assertThat(service.suggest(7)).isEmpty();
+    }
+
+    @Test
+    public void sharedLikesShouldBreakTies() {
+        likeIndex.like(10, 1);
+        likeIndex.like(10, 6);
+        likeIndex.like(11, 5);
+        SuggestionService service = new SuggestionService(friendGraph, likeIndex, 10, 1000, 0.5);
+
+        // у 5 и 6 по одному общему другу, но с 6 есть общий лайк
+        assertThat(service.suggest(1)).containsExactly(4L, 6L, 5L);
+    }
+
+    @Test
+    public void traversalShouldStopAtBudget() {
+        // у друга 2 три связи (3, 4, 5): при лимите 2 до 5 обход не доходит
+        SuggestionService service = new SuggestionService(friendGraph, likeIndex, 10, 2, 0.5);
+
+        assertThat(service.suggest(1)).containsExactly(4L);
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SortedLongSetJsonTest {
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    public void likesShouldBeWrittenAsSortedIdsAndReadBack() throws Exception {
+        Film film = mapper.readValue("{\"name\":\"film\",\"likes\":[30,10,20,10],\"likeCount\":99}", Film.class);
+        assertEquals(SortedLongSet.of(10, 20, 30), film.getLikes());
+
+        mapper.setFilterProvider(new SimpleFilterProvider().addFilter(Film.LIKES_FILTER,
+                SimpleBeanPropertyFilter.serializeAllExcept("likeCount")));
+        JsonNode json = mapper.readTree(mapper.writeValueAsString(film));
+        assertEquals("[10,20,30]", json.get("likes").toString());
+        assertFalse(json.has("likeCount"));
+    }
+
+    @Test
+    public void countFormatShouldWriteOnlyNumberOfLikes() throws Exception {
+        Film film = new Film();
+        film.like(5);
+        film.like(7);
+        mapper.setFilterProvider(new SimpleFilterProvider().addFilter(Film.LIKES_FILTER,
+                SimpleBeanPropertyFilter.serializeAllExcept("likes")));
+
+        JsonNode json = mapper.readTree(mapper.writeValueAsString(film));
+        assertEquals(2, json.get("likeCount").asInt());
+        assertFalse(json.has("likes"));
+        assertTrue(mapper.readValue("{\"likes\":null}", Film.class).getLikes().isEmpty());
+    }
+}